@@ -0,0 +1,80 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding and removing items on a cart that already holds {@code lines} distinct items.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int lines;
+
+    private Cart cart;
+
+    private Item existing;
+
+    private Item extra;
+
+    @Setup
+    public void setUp() {
+
+        Item[] items = Fixtures.items(lines + 1);
+
+        extra = items[lines];
+        existing = items[lines / 2];
+        cart = Fixtures.cart(Arrays.copyOf(items, lines));
+    }
+
+    /**
+     * One more unit of an item already in the cart, then back out again so the cart keeps its shape.
+     */
+    @Benchmark
+    public long addAndRemoveUnit() {
+
+        cart.addItem(existing);
+        cart.removeItem(existing);
+        return cart.getTotalMinor();
+    }
+
+    /**
+     * A new line for an item not yet in the cart, then removing that line entirely.
+     */
+    @Benchmark
+    public long addAndRemoveLine() {
+
+        cart.addItem(extra, 3);
+        cart.removeItem(extra, 3);
+        return cart.getTotalMinor();
+    }
+
+    /**
+     * Expanding the lines into one entry per unit, as order submission does.
+     */
+    @Benchmark
+    public int expandItems() {
+
+        return cart.getItems().size();
+    }
+}
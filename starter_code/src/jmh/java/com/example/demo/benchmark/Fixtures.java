@@ -0,0 +1,55 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+
+import java.math.BigDecimal;
+
+/**
+ * Detached carts and items shaped like the ones the controllers work on, so the benchmarks measure the domain code
+ * without a database.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static Item[] items(int count) {
+
+        Item[] items = new Item[count];
+
+        for (int i = 0; i < count; i++) {
+
+            Item item = new Item();
+            item.setId((long) i + 1);
+            item.setName("Item " + (i + 1));
+            item.setPrice(BigDecimal.valueOf(100 + i % 900, 2));
+            item.setDescription("Benchmark item number " + (i + 1));
+            items[i] = item;
+        }
+
+        return items;
+    }
+
+    /**
+     * A cart owned by a user, with one line of quantity one for each item.
+     */
+    static Cart cart(Item[] items) {
+
+        User user = new User();
+        user.setId(1);
+        user.setUsername("benchmark");
+
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.setUser(user);
+        user.setCart(cart);
+
+        for (Item item : items) {
+            cart.addItem(item);
+        }
+
+        return cart;
+    }
+}
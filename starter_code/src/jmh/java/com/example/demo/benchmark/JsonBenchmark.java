@@ -0,0 +1,88 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.json.JsonCodecs;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The login body and a catalog page of 100 items, read and written the way the application used to (a new mapper
+ * for every login, reflection-driven accessors) against the shared mapper with Afterburner and the readers and writers
+ * from {@link JsonCodecs}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private static final byte[] CREDENTIALS = "{\"username\":\"benchmark\",\"password\":\"password1\"}"
+        .getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper defaultMapper;
+
+    private ObjectReader credentialsReader;
+
+    private ObjectWriter itemWriter;
+
+    private List<Item> items;
+
+    @Setup
+    public void setUp() {
+
+        defaultMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        ObjectMapper tunedMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new AfterburnerModule()).build();
+        JsonCodecs codecs = new JsonCodecs(tunedMapper);
+        credentialsReader = codecs.credentialsReader();
+        itemWriter = tunedMapper.writerFor(tunedMapper.getTypeFactory().constructCollectionType(List.class, Item.class));
+
+        items = Arrays.asList(Fixtures.items(100));
+    }
+
+    @Benchmark
+    public User readCredentialsNewMapper() throws IOException {
+
+        return new ObjectMapper().readValue(CREDENTIALS, User.class);
+    }
+
+    @Benchmark
+    public User readCredentialsShared() throws IOException {
+
+        return credentialsReader.readValue(CREDENTIALS);
+    }
+
+    @Benchmark
+    public byte[] writeItemsDefault() throws IOException {
+
+        return defaultMapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public byte[] writeItemsTuned() throws IOException {
+
+        return itemWriter.writeValueAsBytes(items);
+    }
+}
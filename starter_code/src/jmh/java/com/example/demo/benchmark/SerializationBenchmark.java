@@ -0,0 +1,77 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.responses.CartView;
+import com.example.demo.model.responses.OrderView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the cart and order response bodies for a cart of {@code lines} distinct items, with an object mapper
+ * configured the way Spring MVC configures its own. The entity benchmarks write what the endpoints used to return;
+ * the view benchmarks build and write what they return now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int lines;
+
+    private ObjectMapper objectMapper;
+
+    private Cart cart;
+
+    private UserOrder order;
+
+    @Setup
+    public void setUp() {
+
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cart = Fixtures.cart(Fixtures.items(lines));
+        order = UserOrder.createFromCart(cart);
+    }
+
+    @Benchmark
+    public byte[] writeCart() throws JsonProcessingException {
+
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public byte[] writeOrder() throws JsonProcessingException {
+
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] writeCartView() throws JsonProcessingException {
+
+        return objectMapper.writeValueAsBytes(CartView.from(cart));
+    }
+
+    @Benchmark
+    public byte[] writeOrderView() throws JsonProcessingException {
+
+        return objectMapper.writeValueAsBytes(OrderView.from(order));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.benchmark;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.demo.security.JWTProperties;
+import com.example.demo.security.JWTTokenService;
+import com.example.demo.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing a token at login and verifying it on every authenticated request, with and without the verified token
+ * cache in front of the signature check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBenchmark {
+
+    private JWTTokenService tokenService;
+
+    private VerifiedTokenCache verifiedTokens;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+
+        JWTProperties properties = new JWTProperties();
+        properties.setKeyId("k1");
+        properties.setSecret("benchmark-secret");
+
+        tokenService = new JWTTokenService(properties);
+        verifiedTokens = new VerifiedTokenCache(tokenService, properties, new SimpleMeterRegistry());
+        token = tokenService.sign("benchmark");
+    }
+
+    @Benchmark
+    public String sign() {
+
+        return tokenService.sign("benchmark");
+    }
+
+    @Benchmark
+    public DecodedJWT verify() {
+
+        return tokenService.verify(token);
+    }
+
+    @Benchmark
+    public String verifyCached() {
+
+        return verifiedTokens.verify(token);
+    }
+}
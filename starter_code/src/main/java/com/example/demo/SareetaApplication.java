@@ -1,17 +1,23 @@
 package com.example.demo;
 
+import com.example.demo.security.PasswordHashingExecutor;
+import com.example.demo.security.PasswordHashingProperties;
+import com.example.demo.security.PooledBCryptPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.FilterChainProxy;
 
 @EnableJpaRepositories("com.example.demo.model.persistence.repositories")
 @EntityScan("com.example.demo.model.persistence")
 @SpringBootApplication(exclude = {SecurityAutoConfiguration.class })
+@EnableScheduling
 public class SareetaApplication {
 
 	public static void main(String[] args) {
@@ -19,7 +25,8 @@ public class SareetaApplication {
 	}
 
 	@Bean
-	public BCryptPasswordEncoder bCryptPasswordEncoder() {
-		return new BCryptPasswordEncoder();
+	public BCryptPasswordEncoder bCryptPasswordEncoder(PasswordHashingProperties properties, PasswordHashingExecutor executor,
+													   MeterRegistry meterRegistry) {
+		return new PooledBCryptPasswordEncoder(properties.getStrength(), executor, meterRegistry);
 	}
 }
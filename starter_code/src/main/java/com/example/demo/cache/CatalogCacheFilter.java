@@ -0,0 +1,135 @@
+package com.example.demo.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Conditional GETs and cached bodies for the item catalog: the whole list, one item by id and items by name. Every
+ * response carries the catalog version from {@link CatalogResponseCache} as a strong ETag, its start as Last-Modified
+ * and {@code Cache-Control: private, max-age=<cache.catalog.max-age-seconds>}. Only the first request for a path at a
+ * version runs the controller; once its 200 is stored, a request whose If-None-Match or If-Modified-Since still holds
+ * gets a 304 and any other request is answered from the stored body, gzip-encoded if the client accepts it. Responses
+ * other than 200, such as the 404 for an unknown item id, are never stored, so a conditional request for them always
+ * reaches the controller. Runs after the security filters, so only authenticated requests are answered.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class CatalogCacheFilter extends OncePerRequestFilter {
+
+	private static final Pattern CATALOG_PATH = Pattern.compile("/api/item(/\\d+|/name/[^/]+)?");
+
+	private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+	private final CatalogResponseCache cache;
+
+	private final String cacheControl;
+
+	public CatalogCacheFilter(CatalogResponseCache cache, @Value("${cache.catalog.max-age-seconds:60}") long maxAgeSeconds) {
+		this.cache = cache;
+		this.cacheControl = "private, max-age=" + maxAgeSeconds;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"GET".equals(request.getMethod())
+			|| !CATALOG_PATH.matcher(urlPathHelper.getPathWithinApplication(request)).matches();
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+
+		String key = urlPathHelper.getPathWithinApplication(request);
+
+		CatalogResponseCache.CachedResponse cached = cache.get(key);
+
+		if (cached == null) {
+
+			CatalogResponseCache.Version version = cache.version();
+
+			ContentCachingResponseWrapper written = new ContentCachingResponseWrapper(response);
+			chain.doFilter(request, written);
+
+			if (written.getStatus() != HttpServletResponse.SC_OK) {
+				written.copyBodyToResponse();
+				return;
+			}
+
+			cached = cache.put(key, version, written.getContentType(), written.getContentAsByteArray());
+		}
+
+		String matched = notModified(request, cached.getVersion());
+		if (matched != null) {
+			writeValidators(response, cached.getVersion(), matched);
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		boolean gzip = cached.getGzipBody() != null && acceptsGzip(request);
+		byte[] body = gzip ? cached.getGzipBody() : cached.getBody();
+
+		writeValidators(response, cached.getVersion(), cached.getVersion().etag(gzip));
+		response.setStatus(HttpServletResponse.SC_OK);
+		response.setContentType(cached.getContentType());
+		if (gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	/**
+	 * Returns the ETag to answer a 304 with if the client's copy is still current, or null if it needs the body.
+	 * If-Modified-Since is only consulted when there is no If-None-Match, as RFC 7232 asks.
+	 */
+	private static String notModified(HttpServletRequest request, CatalogResponseCache.Version version) {
+
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+		if (ifNoneMatch != null) {
+			for (String tag : StringUtils.commaDelimitedListToStringArray(ifNoneMatch)) {
+				tag = tag.trim();
+				if (tag.startsWith("W/")) {
+					tag = tag.substring(2);
+				}
+				if (tag.equals("*") || tag.equals(version.etag(false)) || tag.equals(version.etag(true))) {
+					return tag.equals("*") ? version.etag(false) : tag;
+				}
+			}
+			return null;
+		}
+
+		try {
+			long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+			return ifModifiedSince >= version.getLastModified() ? version.etag(false) : null;
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private void writeValidators(HttpServletResponse response, CatalogResponseCache.Version version, String etag) {
+		response.setHeader(HttpHeaders.ETAG, etag);
+		response.setDateHeader(HttpHeaders.LAST_MODIFIED, version.getLastModified());
+		response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+		response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+	}
+
+	private static boolean acceptsGzip(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+	}
+}
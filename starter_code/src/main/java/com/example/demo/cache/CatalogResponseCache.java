@@ -0,0 +1,187 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.ItemChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized bodies of the item catalog responses, tagged with the catalog version they were written at. Every
+ * committed change to an {@link Item} moves the catalog to a new version, which changes the ETag and Last-Modified of
+ * every catalog response and leaves every stored body stale. Bodies are kept as written and, from
+ * {@code cache.catalog.gzip-min-bytes} up, gzip-compressed as well.
+ */
+@Component
+public class CatalogResponseCache {
+
+	public static final Logger log = LoggerFactory.getLogger(CatalogResponseCache.class);
+
+	/**
+	 * Distinguishes the versions of this run from those of an earlier one, which count up from the same start.
+	 */
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+	private final AtomicReference<Version> version = new AtomicReference<>(new Version(epoch, 1, System.currentTimeMillis()));
+
+	private final Cache<String, CachedResponse> responses;
+
+	private final int gzipMinBytes;
+
+	@Autowired
+	public CatalogResponseCache(@Value("${cache.catalog.max-entries:1000}") long maxEntries,
+								@Value("${cache.catalog.gzip-min-bytes:1024}") int gzipMinBytes) {
+
+		this.responses = Caffeine.newBuilder().maximumSize(maxEntries).build();
+		this.gzipMinBytes = gzipMinBytes;
+	}
+
+	public Version version() {
+		return version.get();
+	}
+
+	/**
+	 * Returns the response stored under the key if it was written at the current version.
+	 */
+	public CachedResponse get(String key) {
+		CachedResponse response = responses.getIfPresent(key);
+		return response != null && response.version.equals(version.get()) ? response : null;
+	}
+
+	/**
+	 * Stores a body written at the given version, which the caller read before producing it. A body whose version has
+	 * moved on meanwhile is stored too but never returned by {@link #get(String)}.
+	 */
+	public CachedResponse put(String key, Version version, String contentType, byte[] body) {
+		CachedResponse response = new CachedResponse(version, contentType, body,
+			body.length >= gzipMinBytes ? gzip(body) : null);
+		responses.put(key, response);
+		return response;
+	}
+
+	/**
+	 * Moves the catalog to a new version. Changes made through JPA do this by themselves; writes that bypass Hibernate
+	 * must call it. The new version begins at least a second after the previous one, so that a client holding the
+	 * previous Last-Modified never matches it with If-Modified-Since, even when both changes fall into the same second.
+	 */
+	public void invalidateAll() {
+		Version next = version.updateAndGet(current -> new Version(epoch, current.number + 1,
+			Math.max(System.currentTimeMillis(), current.lastModified + 1000)));
+		responses.invalidateAll();
+		log.debug("Catalog now at version {}", next.number);
+	}
+
+	public long size() {
+		return responses.estimatedSize();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onItemChanged(ItemChangedEvent event) {
+		invalidateAll();
+	}
+
+	private static byte[] gzip(byte[] body) {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return compressed.toByteArray();
+	}
+
+	/**
+	 * A catalog version and the time it began, truncated to the second precision of HTTP dates. Under a burst of
+	 * changes that time may run ahead of the clock, since every version begins in a later second than the one before.
+	 */
+	public static final class Version {
+
+		private final String epoch;
+
+		private final long number;
+
+		private final long lastModified;
+
+		private Version(String epoch, long number, long lastModified) {
+			this.epoch = epoch;
+			this.number = number;
+			this.lastModified = lastModified / 1000 * 1000;
+		}
+
+		/**
+		 * The strong ETag of a representation at this version; gzip-encoded bodies get their own.
+		 */
+		public String etag(boolean gzip) {
+			return "\"" + epoch + "-" + number + (gzip ? "-gzip\"" : "\"");
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Version)) {
+				return false;
+			}
+			Version other = (Version) o;
+			return number == other.number && epoch.equals(other.epoch);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(number);
+		}
+	}
+
+	public static final class CachedResponse {
+
+		private final Version version;
+
+		private final String contentType;
+
+		private final byte[] body;
+
+		private final byte[] gzipBody;
+
+		private CachedResponse(Version version, String contentType, byte[] body, byte[] gzipBody) {
+			this.version = version;
+			this.contentType = contentType;
+			this.body = body;
+			this.gzipBody = gzipBody;
+		}
+
+		public Version getVersion() {
+			return version;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		/**
+		 * The gzip-compressed body, or null if the body was too small to be worth compressing.
+		 */
+		public byte[] getGzipBody() {
+			return gzipBody;
+		}
+	}
+}
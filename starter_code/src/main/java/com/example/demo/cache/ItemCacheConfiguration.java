@@ -0,0 +1,72 @@
+package com.example.demo.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets up the JCache region Hibernate uses as the second-level cache for {@link com.example.demo.model.persistence.Item}.
+ * The region is a bounded Caffeine cache whose entries expire a fixed time after they were written. Lookups by id
+ * through JPA are served from the region, and Hibernate updates or invalidates entries itself when items are written
+ * through JPA; writes that bypass Hibernate must evict through {@code EntityManagerFactory.getCache()}.
+ */
+@Configuration
+public class ItemCacheConfiguration {
+
+	public static final String ITEM_REGION = "item";
+
+	@Value("${cache.item.max-size:10000}")
+	private long maxSize;
+
+	@Value("${cache.item.ttl-seconds:600}")
+	private long ttlSeconds;
+
+	/**
+	 * Each application context gets its own cache manager so contexts started side by side in tests do not share or
+	 * close each other's regions.
+	 */
+	@Bean(destroyMethod = "close")
+	public CacheManager hibernateCacheManager() {
+
+		CaffeineCachingProvider provider = (CaffeineCachingProvider) Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+
+		CacheManager cacheManager = provider.getCacheManager(
+			URI.create("hibernate-" + UUID.randomUUID()), provider.getDefaultClassLoader());
+
+		CaffeineConfiguration<Object, Object> itemRegion = new CaffeineConfiguration<>();
+		itemRegion.setMaximumSize(OptionalLong.of(maxSize));
+		itemRegion.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+		itemRegion.setStoreByValue(false);
+		itemRegion.setStatisticsEnabled(true);
+
+		cacheManager.createCache(ITEM_REGION, itemRegion);
+
+		return cacheManager;
+	}
+
+	/**
+	 * Publishes the region's hits, misses, puts and evictions as the {@code cache.*} meters tagged {@code cache=item}.
+	 */
+	@Bean
+	public MeterBinder itemCacheMetrics(CacheManager hibernateCacheManager) {
+		return registry -> JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(ITEM_REGION));
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+		return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.persistence.User;
+
+/**
+ * The parts of a {@link User} needed to authenticate a request and find the user's data: id, username, password
+ * hash and cart id. Immutable, so it can be shared between threads through {@link UserIdentityCache}.
+ */
+public final class UserIdentity {
+
+	private final long id;
+
+	private final String username;
+
+	private final String passwordHash;
+
+	private final Long cartId;
+
+	public UserIdentity(long id, String username, String passwordHash, Long cartId) {
+		this.id = id;
+		this.username = username;
+		this.passwordHash = passwordHash;
+		this.cartId = cartId;
+	}
+
+	public static UserIdentity of(User user) {
+		return new UserIdentity(user.getId(), user.getUsername(), user.getPassword(),
+			user.getCart() == null ? null : user.getCart().getId());
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getPasswordHash() {
+		return passwordHash;
+	}
+
+	public Long getCartId() {
+		return cartId;
+	}
+
+	/**
+	 * A detached user carrying only the id and username, enough to answer a lookup without loading the entity.
+	 */
+	public User toUser() {
+		User user = new User();
+		user.setId(id);
+		user.setUsername(username);
+		return user;
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserChangedEvent;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Username to {@link UserIdentity} cache in front of {@link UserRepository#findByUsername(String)}. Unknown usernames
+ * are not cached, so a user becomes visible as soon as it is created.
+ *
+ * Entries are dropped when a {@link UserChangedEvent} is published: once when the change is flushed and again after
+ * the transaction completes, so a lookup racing with the commit cannot put the old password hash back. Hits, misses
+ * and evictions are published as the {@code cache.*} meters tagged {@code cache=user.identity}.
+ */
+@Component
+public class UserIdentityCache {
+
+	private final UserRepository userRepository;
+
+	private final Cache<String, UserIdentity> cache;
+
+	@Autowired
+	public UserIdentityCache(UserRepository userRepository,
+							 @Value("${cache.user.max-size:10000}") long maxSize,
+							 @Value("${cache.user.ttl-seconds:300}") long ttlSeconds,
+							 MeterRegistry meterRegistry) {
+
+		this.userRepository = userRepository;
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(maxSize)
+			.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+			.recordStats()
+			.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.identity");
+	}
+
+	/**
+	 * Returns the identity of the user, or null if there is no such user.
+	 */
+	public UserIdentity findByUsername(String username) {
+
+		if (username == null) {
+			return null;
+		}
+
+		return cache.get(username, this::load);
+	}
+
+	public void evict(String username) {
+		if (username != null) {
+			cache.invalidate(username);
+		}
+	}
+
+	@EventListener
+	public void onUserChanged(UserChangedEvent event) {
+		evict(event.getUsername());
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+	public void afterUserChangeCompleted(UserChangedEvent event) {
+		evict(event.getUsername());
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	private UserIdentity load(String username) {
+
+		User user = userRepository.findByUsername(username);
+
+		return user == null ? null : UserIdentity.of(user);
+	}
+}
@@ -2,11 +2,14 @@ package com.example.demo.controllers;
 
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
-import com.example.demo.model.persistence.User;
-import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.ItemRepository;
-import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.requests.CartItemDelta;
+import com.example.demo.model.requests.ModifyCartBatchRequest;
 import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.model.responses.CartBatchErrors;
+import com.example.demo.model.responses.CartLineError;
+import com.example.demo.model.responses.CartView;
+import com.example.demo.services.CartService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,62 +20,138 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.IntStream;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/cart")
 public class CartController {
 
 	public static final Logger log = LoggerFactory.getLogger(CartController.class);
-	
-	@Autowired
-	private UserRepository userRepository;
-	
-	@Autowired
-	private CartRepository cartRepository;
+
+	public static final int MAX_BATCH_ITEMS = 200;
 	
 	@Autowired
 	private ItemRepository itemRepository;
+
+	@Autowired
+	private CartService cartService;
 	
+	/**
+	 * Adds units of an item to the user's cart. A quantity below one, or one that would take the line past
+	 * {@link Integer#MAX_VALUE} units, is a 400.
+	 */
 	@PostMapping("/addToCart")
-	public ResponseEntity<Cart> addTocart(@RequestBody ModifyCartRequest request) {
+	public ResponseEntity<CartView> addTocart(@RequestBody ModifyCartRequest request) {
 
-		log.info("addToCart");
+		if (log.isDebugEnabled()) {
+			log.debug("addToCart: {} item {}", request.getUsername(), request.getItemId());
+		}
 
-		User user = userRepository.findByUsername(request.getUsername());
-		if(user == null) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+		if (request.getQuantity() <= 0) {
+			return ResponseEntity.badRequest().build();
 		}
+
 		Optional<Item> item = itemRepository.findById(request.getItemId());
 		if(!item.isPresent()) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
 		}
-		Cart cart = user.getCart();
-		IntStream.range(0, request.getQuantity())
-			.forEach(i -> cart.addItem(item.get()));
-		cartRepository.save(cart);
-		return ResponseEntity.ok(cart);
+		return update(request.getUsername(), cart -> cart.addItem(item.get(), request.getQuantity()));
 	}
 	
+	/**
+	 * Removes units of an item from the user's cart, at most as many as it holds. A quantity below one is a 400.
+	 */
 	@PostMapping("/removeFromCart")
-	public ResponseEntity<Cart> removeFromcart(@RequestBody ModifyCartRequest request) {
+	public ResponseEntity<CartView> removeFromcart(@RequestBody ModifyCartRequest request) {
 
-		log.info("removeFromcart");
+		if (log.isDebugEnabled()) {
+			log.debug("removeFromCart: {} item {}", request.getUsername(), request.getItemId());
+		}
 
-		User user = userRepository.findByUsername(request.getUsername());
-		if(user == null) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+		if (request.getQuantity() <= 0) {
+			return ResponseEntity.badRequest().build();
 		}
+
 		Optional<Item> item = itemRepository.findById(request.getItemId());
 		if(!item.isPresent()) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
 		}
-		Cart cart = user.getCart();
-		IntStream.range(0, request.getQuantity())
-			.forEach(i -> cart.removeItem(item.get()));
-		cartRepository.save(cart);
-		return ResponseEntity.ok(cart);
+		return update(request.getUsername(), cart -> cart.removeItem(item.get(), request.getQuantity()));
+	}
+
+	/**
+	 * Applies a list of item deltas to the user's cart in one request: a positive quantity adds units, a negative one
+	 * removes them. All items are looked up with one query and the cart is saved once, so the batch applies
+	 * completely or not at all. If any item does not exist nothing is changed and the response is a 404 listing the
+	 * offending entries. A request without a username, with no entries, too many entries, a null entry or a quantity
+	 * of {@link Integer#MIN_VALUE} is a 400, and so is a batch that would take a line past {@link Integer#MAX_VALUE}
+	 * units.
+	 */
+	@PostMapping("/batch")
+	public ResponseEntity<?> modifyCart(@RequestBody ModifyCartBatchRequest request) {
+
+		List<CartItemDelta> deltas = request.getItems();
+
+		if (log.isDebugEnabled()) {
+			log.debug("modifyCart: {} {} items", request.getUsername(), deltas == null ? 0 : deltas.size());
+		}
+
+		if (request.getUsername() == null || deltas == null || deltas.isEmpty() || deltas.size() > MAX_BATCH_ITEMS
+			|| deltas.contains(null) || deltas.stream().anyMatch(delta -> delta.getQuantity() == Integer.MIN_VALUE)) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		Map<Long, Item> items = itemRepository
+			.findAllById(deltas.stream().map(CartItemDelta::getItemId).distinct().collect(Collectors.toList()))
+			.stream()
+			.collect(Collectors.toMap(Item::getId, Function.identity()));
+
+		List<CartLineError> errors = new ArrayList<>();
+		for (int i = 0; i < deltas.size(); i++) {
+			long itemId = deltas.get(i).getItemId();
+			if (!items.containsKey(itemId)) {
+				errors.add(new CartLineError(i, itemId, "Item not found"));
+			}
+		}
+		if (!errors.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new CartBatchErrors(errors));
+		}
+
+		return update(request.getUsername(), userCart -> {
+			for (CartItemDelta delta : deltas) {
+				Item item = items.get(delta.getItemId());
+				if (delta.getQuantity() > 0) {
+					userCart.addItem(item, delta.getQuantity());
+				} else if (delta.getQuantity() < 0) {
+					userCart.removeItem(item, -delta.getQuantity());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Applies the mutation through {@link CartService#update}. A line quantity or total that would overflow rolls the
+	 * update back and is answered with a 400.
+	 */
+	private ResponseEntity<CartView> update(String username, Consumer<Cart> mutation) {
+
+		try {
+
+			return cartService.update(username, mutation)
+				.map(cart -> ResponseEntity.ok(CartView.from(cart)))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+
+		} catch (ArithmeticException e) {
+
+			log.debug("update: cart of {} would overflow", username);
+
+			return ResponseEntity.badRequest().build();
+		}
 	}
-		
 }
@@ -1,17 +1,33 @@
 package com.example.demo.controllers;
 
+import com.example.demo.json.JsonCodecs;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.search.ItemSearchIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/item")
@@ -19,21 +35,117 @@ public class ItemController {
 
 	public static final Logger log = LoggerFactory.getLogger(ItemController.class);
 
+	public static final int MAX_PAGE_SIZE = 500;
+
 	@Autowired
 	private ItemRepository itemRepository;
+
+	@Autowired
+	private ItemSearchIndex itemSearchIndex;
+
+	@Autowired
+	private JsonCodecs jsonCodecs;
+
+	@PersistenceContext
+	private EntityManager entityManager;
 	
 	@GetMapping
 	public ResponseEntity<List<Item>> getItems() {
 
-		log.info("getItems");
+		log.debug("getItems");
 
 		return ResponseEntity.ok(itemRepository.findAll());
 	}
+
+	/**
+	 * Returns one page of the catalog ordered by id. When {@code afterId} is given the page starts right after that
+	 * item (keyset pagination) and {@code page} is ignored, which keeps deep pages as cheap as the first one.
+	 */
+	@GetMapping("/page")
+	public ResponseEntity<List<Item>> getItemsPage(@RequestParam(defaultValue = "0") int page,
+												   @RequestParam(defaultValue = "50") int size,
+												   @RequestParam(required = false) Long afterId) {
+
+		log.debug("getItemsPage");
+
+		if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		if (afterId != null) {
+			return ResponseEntity.ok(itemRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size)));
+		}
+
+		return ResponseEntity.ok(itemRepository.findAllBy(PageRequest.of(page, size, Sort.by("id"))).getContent());
+	}
+
+	/**
+	 * Writes the whole catalog as a JSON array while the rows are read, detaching each item once written so the
+	 * persistence context does not grow with the catalog.
+	 */
+	@GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+	@Transactional(readOnly = true)
+	public void streamItems(HttpServletResponse response) throws IOException {
+
+		log.debug("streamItems");
+
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+		ObjectWriter writer = jsonCodecs.itemWriter();
+
+		try (Stream<Item> items = itemRepository.streamAll();
+			 JsonGenerator generator = writer.getFactory().createGenerator(response.getOutputStream())) {
+
+			generator.writeStartArray();
+
+			items.forEach(item -> {
+				try {
+					writer.writeValue(generator, item);
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+				entityManager.detach(item);
+			});
+
+			generator.writeEndArray();
+		}
+	}
+	
+	/**
+	 * Searches item names and descriptions through {@link ItemSearchIndex}. {@code mode} is one of token (default),
+	 * prefix or name; all are case-insensitive.
+	 */
+	@GetMapping("/search")
+	public ResponseEntity<List<Item>> searchItems(@RequestParam("q") String query,
+												  @RequestParam(defaultValue = "token") String mode,
+												  @RequestParam(defaultValue = "50") int limit) {
+
+		log.debug("searchItems: {}", query);
+
+		ItemSearchIndex.Mode searchMode;
+
+		try {
+			searchMode = ItemSearchIndex.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		List<Long> ids = itemSearchIndex.search(query, searchMode, limit);
+
+		List<Item> items = itemRepository.findAllById(ids);
+		items.sort(Comparator.comparing(Item::getId));
+
+		return ResponseEntity.ok(items);
+	}
 	
 	@GetMapping("/{id}")
 	public ResponseEntity<Item> getItemById(@PathVariable Long id) {
 
-		log.info("getItemById");
+		log.debug("getItemById: {}", id);
 
 		return ResponseEntity.of(itemRepository.findById(id));
 	}
@@ -41,7 +153,7 @@ public class ItemController {
 	@GetMapping("/name/{name}")
 	public ResponseEntity<List<Item>> getItemsByName(@PathVariable String name) {
 
-		log.info("getItemsByName");
+		log.debug("getItemsByName: {}", name);
 
 		List<Item> items = itemRepository.findByName(name);
 		return items == null || items.isEmpty() ? ResponseEntity.notFound().build()
@@ -1,50 +1,151 @@
 package com.example.demo.controllers;
 
-import com.example.demo.model.persistence.User;
+import com.example.demo.cache.UserIdentity;
+import com.example.demo.cache.UserIdentityCache;
+import com.example.demo.model.persistence.IdempotencyRecord;
 import com.example.demo.model.persistence.UserOrder;
 import com.example.demo.model.persistence.repositories.OrderRepository;
-import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.responses.OrderHistoryPage;
+import com.example.demo.model.responses.OrderSummary;
+import com.example.demo.model.responses.OrderView;
+import com.example.demo.services.CartUpdateConflictException;
+import com.example.demo.services.OrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/order")
 public class OrderController {
 
 	public static final Logger log = LoggerFactory.getLogger(OrderController.class);
-	
-	@Autowired
-	private UserRepository userRepository;
+
+	public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+	public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+	public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
 	
 	@Autowired
 	private OrderRepository orderRepository;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private UserIdentityCache userIdentityCache;
 	
 	
+	/**
+	 * Submits the user's cart as an order. A client that may retry should send an {@code Idempotency-Key} header;
+	 * a retry with the same key returns the order the first request created, marked with {@code Idempotent-Replayed},
+	 * without writing anything. A cart that keeps being changed while the order is written is answered with a 409.
+	 */
 	@PostMapping("/submit/{username}")
-	public ResponseEntity<UserOrder> submit(@PathVariable String username) {
+	public ResponseEntity<OrderView> submit(@PathVariable String username,
+											@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
 
-		log.info("submit");
+		log.debug("submit: {}", username);
 
-		User user = userRepository.findByUsername(username);
-		if(user == null) {
-			return ResponseEntity.notFound().build();
+		if (idempotencyKey != null) {
+
+			if (idempotencyKey.isEmpty() || idempotencyKey.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+				return ResponseEntity.badRequest().build();
+			}
+
+			Optional<UserOrder> submitted = orderService.findSubmitted(username, idempotencyKey);
+			if (submitted.isPresent()) {
+				return replay(submitted.get());
+			}
+		}
+
+		try {
+
+			return orderService.submit(username, idempotencyKey)
+				.map(order -> ResponseEntity.ok(OrderView.from(order)))
+				.orElseGet(() -> ResponseEntity.notFound().build());
+
+		} catch (DataIntegrityViolationException e) {
+
+			// A concurrent request with the same key committed first; its order is the answer to this one too.
+			if (idempotencyKey == null) {
+				throw e;
+			}
+
+			return orderService.findSubmitted(username, idempotencyKey).map(this::replay).orElseThrow(() -> e);
+
+		} catch (OptimisticLockingFailureException e) {
+
+			log.warn("submit: cart of {} changed by a writer that did not take its lock", username);
+
+			throw new CartUpdateConflictException(username, e);
 		}
-		UserOrder order = UserOrder.createFromCart(user.getCart());
-		orderRepository.save(order);
-		return ResponseEntity.ok(order);
+	}
+
+	private ResponseEntity<OrderView> replay(UserOrder order) {
+		return ResponseEntity.ok().header(IDEMPOTENT_REPLAYED, "true").body(OrderView.from(order));
 	}
 	
+	/**
+	 * Returns all of the user's orders, built from one flat query over orders, lines and item names.
+	 */
 	@GetMapping("/history/{username}")
-	public ResponseEntity<List<UserOrder>> getOrdersForUser(@PathVariable String username) {
-		User user = userRepository.findByUsername(username);
+	public ResponseEntity<List<OrderView>> getOrdersForUser(@PathVariable String username) {
+		UserIdentity user = userIdentityCache.findByUsername(username);
+		if(user == null) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(OrderView.fromRows(orderRepository.findLineRowsByUserId(user.getId())));
+	}
+
+	/**
+	 * Returns the user's orders newest first, {@code size} at a time. Pass the {@code nextBeforeId} of a page as
+	 * {@code beforeId} to get the next one. Lines are only loaded, in one query for the whole page, when
+	 * {@code details} is true.
+	 */
+	@GetMapping("/history/{username}/page")
+	public ResponseEntity<OrderHistoryPage> getOrderHistoryPage(@PathVariable String username,
+																@RequestParam(required = false) Long beforeId,
+																@RequestParam(defaultValue = "20") int size,
+																@RequestParam(defaultValue = "false") boolean details) {
+
+		log.debug("getOrderHistoryPage: {}", username);
+
+		if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		UserIdentity user = userIdentityCache.findByUsername(username);
 		if(user == null) {
 			return ResponseEntity.notFound().build();
 		}
-		return ResponseEntity.ok(orderRepository.findByUser(user));
+
+		List<OrderSummary> orders = orderRepository.findSummariesByUserId(user.getId(),
+			beforeId == null ? Long.MAX_VALUE : beforeId, PageRequest.of(0, size));
+
+		if (details && !orders.isEmpty()) {
+
+			Map<Long, OrderView> withLines = OrderView
+				.fromRows(orderRepository.findLineRowsByIdIn(orders.stream().map(OrderSummary::getId).collect(Collectors.toList())))
+				.stream()
+				.collect(Collectors.toMap(OrderView::getId, Function.identity()));
+
+			orders.forEach(order -> order.setLines(withLines.get(order.getId()).getLines()));
+		}
+
+		Long nextBeforeId = orders.size() == size ? orders.get(size - 1).getId() : null;
+
+		return ResponseEntity.ok(new OrderHistoryPage(orders, nextBeforeId));
 	}
 }
@@ -0,0 +1,61 @@
+package com.example.demo.controllers;
+
+import com.example.demo.security.JWTTokenService;
+import com.example.demo.security.RefreshTokenStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Renews and revokes the sessions started at /login. Both endpoints are open: the refresh token in the request is the
+ * credential, and neither touches the database.
+ */
+@RestController
+@RequestMapping("/api/token")
+public class TokenController {
+
+	public static final Logger log = LoggerFactory.getLogger(TokenController.class);
+
+	@Autowired
+	private JWTTokenService tokenService;
+
+	@Autowired
+	private RefreshTokenStore refreshTokenStore;
+
+	/**
+	 * Trades a refresh token for a new access token and the refresh token to use next time, in the same headers as
+	 * the login response. The presented refresh token cannot be used again.
+	 */
+	@PostMapping("/refresh")
+	public ResponseEntity<Void> refresh(@RequestHeader(RefreshTokenStore.HEADER) String refreshToken) {
+
+		RefreshTokenStore.Rotation rotation = refreshTokenStore.rotate(refreshToken);
+
+		if (rotation == null) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		}
+
+		log.debug("refresh: {}", rotation.getSubject());
+
+		return ResponseEntity.ok()
+			.header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenService.sign(rotation.getSubject()))
+			.header(RefreshTokenStore.HEADER, rotation.getToken())
+			.build();
+	}
+
+	/**
+	 * Logs out the session the refresh token belongs to. Access tokens already issued stay valid until they expire.
+	 */
+	@PostMapping("/revoke")
+	public ResponseEntity<Void> revoke(@RequestHeader(RefreshTokenStore.HEADER) String refreshToken) {
+
+		return refreshTokenStore.revoke(refreshToken) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+	}
+}
@@ -1,13 +1,16 @@
 package com.example.demo.controllers;
 
+import com.example.demo.cache.UserIdentity;
+import com.example.demo.cache.UserIdentityCache;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.User;
-import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.UserRepository;
 import com.example.demo.model.requests.CreateUserRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
@@ -22,7 +25,7 @@ public class UserController {
 	private UserRepository userRepository;
 	
 	@Autowired
-	private CartRepository cartRepository;
+	private UserIdentityCache userIdentityCache;
 
 	@Autowired
 	BCryptPasswordEncoder bCryptPasswordEncoder;
@@ -30,7 +33,7 @@ public class UserController {
 	@GetMapping("/id/{id}")
 	public ResponseEntity<User> findById(@PathVariable Long id) {
 
-		log.info("findyById: " + id);
+		log.debug("findById: {}", id);
 
 		return ResponseEntity.of(userRepository.findById(id));
 	}
@@ -38,32 +41,52 @@ public class UserController {
 	@GetMapping("/{username}")
 	public ResponseEntity<User> findByUserName(@PathVariable String username) {
 
-		log.info("findByUserName: " + username);
+		log.debug("findByUserName: {}", username);
 
-		User user = userRepository.findByUsername(username);
-		return user == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(user);
+		UserIdentity user = userIdentityCache.findByUsername(username);
+		return user == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(user.toUser());
 	}
 	
+	/**
+	 * Validates the request before touching the database, rejects taken usernames with an existence probe before
+	 * paying for a hash, and saves the user together with its cart in one insert transaction through the cascade.
+	 */
 	@PostMapping("/create")
 	public ResponseEntity<User> createUser(@RequestBody CreateUserRequest createUserRequest) {
 
-		log.info("createUser");
+		log.info("createUser: {}", createUserRequest.getUsername());
+
+		String username = createUserRequest.getUsername();
+		String password = createUserRequest.getPassword();
+
+		if (username == null || username.trim().isEmpty() || password == null || password.length() < 7 ||
+			!password.equals(createUserRequest.getConfirmPassword())) {
+
+			return ResponseEntity.badRequest().build();
+		}
+
+		if (userRepository.existsByUsername(username)) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		}
 
 		User user = new User();
-		user.setUsername(createUserRequest.getUsername());
+		user.setUsername(username);
+		user.setPassword(bCryptPasswordEncoder.encode(password));
+
 		Cart cart = new Cart();
-		cartRepository.save(cart);
+		cart.setUser(user);
 		user.setCart(cart);
 
-		if (createUserRequest.getPassword().length() < 7 ||
-			!createUserRequest.getPassword().equals(createUserRequest.getConfirmPassword())) {
+		try {
 
-			return ResponseEntity.badRequest().build();
-		}
+			userRepository.save(user);
+
+		} catch (DataIntegrityViolationException e) {
 
-		user.setPassword(bCryptPasswordEncoder.encode(createUserRequest.getPassword()));
+			// Lost a race with a concurrent signup for the same name; the unique constraint rolled back both rows.
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		}
 
-		userRepository.save(user);
 		return ResponseEntity.ok(user);
 	}
 	
@@ -0,0 +1,23 @@
+package com.example.demo.json;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tunes the application's single {@link com.fasterxml.jackson.databind.ObjectMapper}, the one Spring MVC writes
+ * response bodies with. Spring Boot registers every {@link Module} bean with it.
+ */
+@Configuration
+public class JsonConfiguration {
+
+	/**
+	 * Replaces reflective getter, setter and constructor calls with generated bytecode for the model classes. Members
+	 * the generated classes cannot reach, such as private fields, keep using reflection.
+	 */
+	@Bean
+	public Module afterburnerModule() {
+		return new AfterburnerModule();
+	}
+}
@@ -0,0 +1,29 @@
+package com.example.demo.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through one call in every {@code every}, for logging on paths hit by every request where logging each call
+ * would cost more than it tells. Callers check the log level first so the counter is only touched when the message
+ * would actually be written.
+ */
+public class LogSampler {
+
+    private final long every;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    public LogSampler(long every) {
+
+        if (every < 1) {
+            throw new IllegalArgumentException("every must be at least 1");
+        }
+
+        this.every = every;
+    }
+
+    public boolean sample() {
+
+        return calls.getAndIncrement() % every == 0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.maintenance;
+
+import com.example.demo.model.persistence.repositories.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Forgets Idempotency-Keys once clients can no longer be retrying the request that used them.
+ */
+@Component
+public class IdempotencyRecordCleanup {
+
+    public static final Logger log = LoggerFactory.getLogger(IdempotencyRecordCleanup.class);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${order.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Scheduled(initialDelayString = "${order.idempotency.cleanup-interval-ms:3600000}",
+        fixedDelayString = "${order.idempotency.cleanup-interval-ms:3600000}")
+    @Transactional
+    public int removeExpiredRecords() {
+
+        int removed = idempotencyRecordRepository.deleteByCreatedAtBefore(Instant.now().minus(Duration.ofHours(ttlHours)));
+
+        if (removed > 0) {
+            log.info("Removed {} expired idempotency records", removed);
+        }
+
+        return removed;
+    }
+}
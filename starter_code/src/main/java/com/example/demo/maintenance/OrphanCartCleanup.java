@@ -0,0 +1,69 @@
+package com.example.demo.maintenance;
+
+import com.example.demo.model.persistence.repositories.CartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Removes carts that no user points at. Signup used to save the cart before validating the request, so every rejected
+ * signup left one behind. Carts are deleted {@code cart.orphan-cleanup.batch-size} at a time, each batch in its own
+ * short transaction, so a large backlog never holds locks for long.
+ */
+@Component
+public class OrphanCartCleanup {
+
+    public static final Logger log = LoggerFactory.getLogger(OrphanCartCleanup.class);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${cart.orphan-cleanup.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${cart.orphan-cleanup.initial-delay-ms:60000}",
+        fixedDelayString = "${cart.orphan-cleanup.interval-ms:3600000}")
+    public int removeOrphanCarts() {
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int removed = 0;
+        int batch;
+
+        do {
+
+            batch = transaction.execute(status -> {
+
+                List<Long> ids = cartRepository.findOrphanIds(PageRequest.of(0, batchSize));
+
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+
+                cartRepository.deleteLinesByCartIdIn(ids);
+
+                return cartRepository.deleteByIdIn(ids);
+            });
+
+            removed += batch;
+
+        } while (batch == batchSize);
+
+        if (removed > 0) {
+            log.info("Removed {} orphan carts", removed);
+        }
+
+        return removed;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    /**
+     * Registers the query counter with Hibernate. An inspector configured explicitly through
+     * spring.jpa.properties takes precedence.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer(QueryCounter queryCounter) {
+
+        return properties -> properties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTags;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request issued as the "db.queries" summary, tagged like
+ * "http.server.requests" so the two can be read side by side. Runs ahead of the security filters so statements
+ * issued while authenticating are counted too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final QueryCounter queryCounter;
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryCountFilter(QueryCounter queryCounter, MeterRegistry meterRegistry) {
+        this.queryCounter = queryCounter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        queryCounter.reset();
+
+        try {
+
+            chain.doFilter(request, response);
+
+        } finally {
+
+            DistributionSummary.builder("db.queries")
+                .description("SQL statements issued per request")
+                .tags(Tags.of(WebMvcTags.method(request), WebMvcTags.uri(request, response), WebMvcTags.status(response)))
+                .register(meterRegistry)
+                .record(queryCounter.count());
+        }
+    }
+}
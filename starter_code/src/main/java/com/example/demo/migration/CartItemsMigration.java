@@ -0,0 +1,21 @@
+package com.example.demo.migration;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Carts used to be stored as one {@code cart_items} join row per unit added. This folds any rows left in that
+ * legacy table into {@code cart_line} (one row per cart and item with a quantity) and then drops the old table.
+ * Unit prices are carried over in cents, the minor unit of the store currency.
+ */
+@Component
+public class CartItemsMigration extends LegacyJoinTableMigration {
+
+    public CartItemsMigration() {
+        super("cart_items",
+            "insert into cart_line (cart_id, item_id, quantity, unit_price_minor) " +
+            "select ci.cart_id, ci.items_id, count(*), cast(round(max(i.price) * 100, 0) as bigint) " +
+            "from cart_items ci join item i on i.id = ci.items_id " +
+            "where not exists (select 1 from cart_line cl where cl.cart_id = ci.cart_id and cl.item_id = ci.items_id) " +
+            "group by ci.cart_id, ci.items_id");
+    }
+}
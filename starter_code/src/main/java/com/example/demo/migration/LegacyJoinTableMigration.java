@@ -0,0 +1,76 @@
+package com.example.demo.migration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+/**
+ * Replaces a legacy join table holding one row per unit with a line table holding one row per item and a quantity.
+ * At startup, if the legacy table is still there, its rows are folded into the line table with the subclass's
+ * statement and the legacy table is dropped, all in one transaction. Once the table is gone this does nothing.
+ */
+public abstract class LegacyJoinTableMigration implements ApplicationRunner {
+
+    public static final Logger log = LoggerFactory.getLogger(LegacyJoinTableMigration.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String legacyTable;
+
+    private final String foldSql;
+
+    /**
+     * @param legacyTable the join table to fold and drop
+     * @param foldSql     inserts the lines for the legacy rows, skipping those already migrated
+     */
+    protected LegacyJoinTableMigration(String legacyTable, String foldSql) {
+        this.legacyTable = legacyTable;
+        this.foldSql = foldSql;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) throws Exception {
+
+        if (!legacyTableExists()) {
+            return;
+        }
+
+        int migrated = jdbcTemplate.update(foldSql);
+
+        jdbcTemplate.execute("drop table " + legacyTable);
+
+        log.info("Migrated {} lines from {}", migrated, legacyTable);
+    }
+
+    private boolean legacyTableExists() throws Exception {
+
+        return (Boolean) JdbcUtils.extractDatabaseMetaData(dataSource, (DatabaseMetaData metaData) -> {
+
+            for (String name : new String[] {legacyTable, legacyTable.toUpperCase()}) {
+
+                try (ResultSet tables = metaData.getTables(null, null, name, new String[] {"TABLE"})) {
+
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.migration;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Orders used to be stored as one {@code user_order_items} join row per unit bought. This folds any rows left in that
+ * legacy table into {@code user_order_line} (one row per order and item with a quantity) and then drops the old
+ * table. The price paid was never stored, so migrated lines take the item's current price,
+ * in cents of the store currency.
+ */
+@Component
+public class OrderItemsMigration extends LegacyJoinTableMigration {
+
+    public OrderItemsMigration() {
+        super("user_order_items",
+            "insert into user_order_line (order_id, item_id, quantity, unit_price_minor) " +
+            "select oi.user_order_id, oi.items_id, count(*), cast(round(max(i.price) * 100, 0) as bigint) " +
+            "from user_order_items oi join item i on i.id = oi.items_id " +
+            "where not exists (select 1 from user_order_line ol where ol.order_id = oi.user_order_id) " +
+            "group by oi.user_order_id, oi.items_id");
+    }
+}
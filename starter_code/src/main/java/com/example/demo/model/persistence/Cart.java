@@ -2,25 +2,37 @@ package com.example.demo.model.persistence;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
+import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.ManyToMany;
+import javax.persistence.MapKey;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
 @Table(name = "cart")
+@NamedEntityGraph(name = Cart.WITH_LINES,
+	attributeNodes = {@NamedAttributeNode(value = "lines", subgraph = "line"), @NamedAttributeNode("user")},
+	subgraphs = @NamedSubgraph(name = "line", attributeNodes = @NamedAttributeNode("item")))
 public class Cart {
+
+	public static final String WITH_LINES = "Cart.lines";
 	
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,25 +40,46 @@ public class Cart {
 	@Column
 	private Long id;
 	
-	@ManyToMany
-	@JsonProperty
+	@Version
+	@JsonIgnore
 	@Column
-    private List<Item> items;
+	private Long version;
+	
+	@OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
+	@MapKey(name = "itemId")
+	@JsonIgnore
+	private Map<Long, CartLine> lines = new LinkedHashMap<>();
 	
 	@OneToOne(mappedBy = "cart")
 	@JsonProperty
     private User user;
 	
-	@Column
+	@Column(name = "total_minor", nullable = false)
+	@JsonIgnore
+	private long totalMinor;
+
+	@Column(nullable = false, length = 3)
 	@JsonProperty
-	private BigDecimal total;
+	private String currency = Money.DEFAULT_CURRENCY;
 	
+	@JsonProperty("total")
 	public BigDecimal getTotal() {
-		return total;
+		return Money.fromMinorUnits(totalMinor, currency);
 	}
 
 	public void setTotal(BigDecimal total) {
-		this.total = total;
+		this.totalMinor = Money.toMinorUnits(total, currency);
+	}
+
+	/**
+	 * The running total in minor units of {@link #getCurrency()}, kept up to date as lines change.
+	 */
+	public long getTotalMinor() {
+		return totalMinor;
+	}
+
+	public String getCurrency() {
+		return currency;
 	}
 
 	public User getUser() {
@@ -65,33 +98,103 @@ public class Cart {
 		this.id = id;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	@JsonProperty("lines")
+	public Collection<CartLine> getLines() {
+		return lines.values();
+	}
+
+	/**
+	 * Expands the cart lines into one entry per unit, in the order the lines were added.
+	 */
+	@JsonIgnore
 	public List<Item> getItems() {
+		List<Item> items = new ArrayList<>();
+		for (CartLine line : lines.values()) {
+			for (int i = 0; i < line.getQuantity(); i++) {
+				items.add(line.getItem());
+			}
+		}
 		return items;
 	}
 
 	public void setItems(List<Item> items) {
-		this.items = items;
+		lines.clear();
+		totalMinor = 0;
+		if (items != null) {
+			items.forEach(this::addItem);
+		}
 	}
-	
+
+	/**
+	 * Removes every line, as after the cart has been turned into an order.
+	 */
+	public void clear() {
+		lines.clear();
+		totalMinor = 0;
+	}
+
+	/**
+	 * Sums the lines from scratch, without touching the running total.
+	 */
+	public long computeTotalMinor() {
+		long sum = 0;
+		for (CartLine line : lines.values()) {
+			sum = Math.addExact(sum, line.getSubtotalMinor());
+		}
+		return sum;
+	}
+
+	/**
+	 * Checks the running total against the lines and replaces it with the recomputed sum if they disagree.
+	 *
+	 * @return true if the running total had drifted and was corrected
+	 */
+	public boolean reconcileTotal() {
+		long computed = computeTotalMinor();
+		if (computed == totalMinor) {
+			return false;
+		}
+		totalMinor = computed;
+		return true;
+	}
+
 	public void addItem(Item item) {
-		if(items == null) {
-			items = new ArrayList<>();
+		addItem(item, 1);
+	}
+
+	public void addItem(Item item, int quantity) {
+		if (quantity <= 0) {
+			return;
 		}
-		items.add(item);
-		if(total == null) {
-			total = new BigDecimal(0);
+		CartLine line = lines.get(item.getId());
+		if (line == null) {
+			line = new CartLine(this, item);
+			lines.put(item.getId(), line);
 		}
-		total = total.add(item.getPrice());
+		int added = Math.addExact(line.getQuantity(), quantity);
+		totalMinor = Math.addExact(totalMinor, Math.multiplyExact(line.getUnitPriceMinor(), (long) quantity));
+		line.setQuantity(added);
 	}
-	
+
 	public void removeItem(Item item) {
-		if(items == null) {
-			items = new ArrayList<>();
+		removeItem(item, 1);
+	}
+
+	public void removeItem(Item item, int quantity) {
+		CartLine line = lines.get(item.getId());
+		if (line == null || quantity <= 0) {
+			return;
 		}
-		items.remove(item);
-		if(total == null) {
-			total = new BigDecimal(0);
+		int removed = Math.min(quantity, line.getQuantity());
+		if (removed == line.getQuantity()) {
+			lines.remove(item.getId());
+		} else {
+			line.setQuantity(line.getQuantity() - removed);
 		}
-		total = total.subtract(item.getPrice());
+		totalMinor = Math.subtractExact(totalMinor, Math.multiplyExact(line.getUnitPriceMinor(), (long) removed));
 	}
 }
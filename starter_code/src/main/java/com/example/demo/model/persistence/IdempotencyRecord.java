@@ -0,0 +1,69 @@
+package com.example.demo.model.persistence;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * Remembers which order a user's request with a given Idempotency-Key created, so a retried submit returns that order
+ * instead of creating another. Written in the same transaction as the order; the unique constraint turns a concurrent
+ * retry into a constraint violation instead of a duplicate.
+ */
+@Entity
+@Table(name = "idempotency_record", uniqueConstraints = @UniqueConstraint(columnNames = {"username", "idempotency_key"}))
+public class IdempotencyRecord {
+
+	public static final int MAX_KEY_LENGTH = 100;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false)
+	private String username;
+
+	@Column(name = "idempotency_key", nullable = false, length = MAX_KEY_LENGTH)
+	private String idempotencyKey;
+
+	@Column(name = "order_id", nullable = false)
+	private Long orderId;
+
+	@Column(nullable = false)
+	private Instant createdAt;
+
+	public IdempotencyRecord() {
+	}
+
+	public IdempotencyRecord(String username, String idempotencyKey, Long orderId) {
+		this.username = username;
+		this.idempotencyKey = idempotencyKey;
+		this.orderId = orderId;
+		this.createdAt = Instant.now();
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getIdempotencyKey() {
+		return idempotencyKey;
+	}
+
+	public Long getOrderId() {
+		return orderId;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+}
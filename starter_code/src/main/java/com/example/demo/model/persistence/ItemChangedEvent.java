@@ -0,0 +1,26 @@
+package com.example.demo.model.persistence;
+
+/**
+ * Published by {@link ItemEntityListener} whenever an {@link Item} is inserted, updated or deleted through JPA.
+ */
+public class ItemChangedEvent {
+
+	public enum Type { SAVED, REMOVED }
+
+	private final Item item;
+
+	private final Type type;
+
+	public ItemChangedEvent(Item item, Type type) {
+		this.item = item;
+		this.type = type;
+	}
+
+	public Item getItem() {
+		return item;
+	}
+
+	public Type getType() {
+		return type;
+	}
+}
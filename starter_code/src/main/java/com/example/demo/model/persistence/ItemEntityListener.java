@@ -0,0 +1,29 @@
+package com.example.demo.model.persistence;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Turns JPA lifecycle callbacks on {@link Item} into {@link ItemChangedEvent}s so derived views of the catalog can
+ * stay current. Hibernate obtains this listener from the Spring bean container, which is what allows injection.
+ */
+public class ItemEntityListener {
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@PostPersist
+	@PostUpdate
+	public void saved(Item item) {
+		eventPublisher.publishEvent(new ItemChangedEvent(item, ItemChangedEvent.Type.SAVED));
+	}
+
+	@PostRemove
+	public void removed(Item item) {
+		eventPublisher.publishEvent(new ItemChangedEvent(item, ItemChangedEvent.Type.REMOVED));
+	}
+}
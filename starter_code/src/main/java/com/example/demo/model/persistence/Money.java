@@ -0,0 +1,41 @@
+package com.example.demo.model.persistence;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Conversions between decimal amounts and the whole number of minor units (cents for USD) that carts and orders store
+ * alongside an ISO 4217 currency code. Keeping amounts as {@code long}s lets totals be kept up to date with plain
+ * integer arithmetic; a {@link BigDecimal} is only made when an amount enters from an item price or leaves as JSON.
+ */
+public final class Money {
+
+	/**
+	 * The currency item prices are listed in, and so the currency of every cart and order.
+	 */
+	public static final String DEFAULT_CURRENCY = "USD";
+
+	private Money() {
+	}
+
+	/**
+	 * Converts an amount to minor units of the currency, rounding half up to the nearest minor unit.
+	 *
+	 * @throws ArithmeticException if the amount does not fit in a {@code long}
+	 */
+	public static long toMinorUnits(BigDecimal amount, String currency) {
+		if (amount == null) {
+			return 0;
+		}
+		return amount.movePointRight(fractionDigits(currency)).setScale(0, RoundingMode.HALF_UP).longValueExact();
+	}
+
+	public static BigDecimal fromMinorUnits(long minorUnits, String currency) {
+		return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+	}
+
+	private static int fractionDigits(String currency) {
+		return Math.max(0, Currency.getInstance(currency).getDefaultFractionDigits());
+	}
+}
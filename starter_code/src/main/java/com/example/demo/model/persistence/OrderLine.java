@@ -0,0 +1,76 @@
+package com.example.demo.model.persistence;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One item of an order with the quantity bought and the price it was bought at. Lines are written with the order
+ * and never change, and the item they point at is never written through them. The price is held in minor units of
+ * the store currency, {@link Money#DEFAULT_CURRENCY}.
+ */
+@Embeddable
+public class OrderLine {
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "item_id", nullable = false)
+	@JsonProperty
+	private Item item;
+
+	@Column(nullable = false)
+	@JsonProperty
+	private int quantity;
+
+	@Column(name = "unit_price_minor", nullable = false)
+	@JsonIgnore
+	private long unitPriceMinor;
+
+	public OrderLine() {
+	}
+
+	public OrderLine(Item item, int quantity, long unitPriceMinor) {
+		this.item = item;
+		this.quantity = quantity;
+		this.unitPriceMinor = unitPriceMinor;
+	}
+
+	public Item getItem() {
+		return item;
+	}
+
+	public void setItem(Item item) {
+		this.item = item;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+	@JsonProperty("unitPrice")
+	public BigDecimal getUnitPrice() {
+		return Money.fromMinorUnits(unitPriceMinor, Money.DEFAULT_CURRENCY);
+	}
+
+	public long getUnitPriceMinor() {
+		return unitPriceMinor;
+	}
+
+	public void setUnitPriceMinor(long unitPriceMinor) {
+		this.unitPriceMinor = unitPriceMinor;
+	}
+
+	@JsonIgnore
+	public long getSubtotalMinor() {
+		return Math.multiplyExact(unitPriceMinor, (long) quantity);
+	}
+}
@@ -0,0 +1,17 @@
+package com.example.demo.model.persistence;
+
+/**
+ * Published by {@link UserEntityListener} whenever a {@link User} is updated or deleted through JPA.
+ */
+public class UserChangedEvent {
+
+	private final String username;
+
+	public UserChangedEvent(String username) {
+		this.username = username;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+}
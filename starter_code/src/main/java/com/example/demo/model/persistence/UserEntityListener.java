@@ -0,0 +1,22 @@
+package com.example.demo.model.persistence;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Publishes a {@link UserChangedEvent} whenever a stored user changes, for example a new password hash or cart.
+ */
+public class UserEntityListener {
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@PostUpdate
+	@PostRemove
+	public void changed(User user) {
+		eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
+	}
+}
@@ -1,46 +1,63 @@
 package com.example.demo.model.persistence;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
-import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
-import javax.persistence.JoinTable;
-import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.Table;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
-@Table(name = "user_order")
+@Table(name = "user_order", indexes = @Index(name = "idx_user_order_user_id", columnList = "user_id"))
+@NamedEntityGraph(name = UserOrder.WITH_LINES, attributeNodes = {@NamedAttributeNode("lines"), @NamedAttributeNode("user")})
 public class UserOrder {
 
+	public static final String WITH_LINES = "UserOrder.lines";
+
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	@JsonProperty
 	@Column
 	private Long id;
 	
-	@ManyToMany(cascade = CascadeType.ALL)
+	@ElementCollection
+	@CollectionTable(name = "user_order_line", joinColumns = @JoinColumn(name = "order_id"))
 	@JsonProperty
-	@Column
-    private List<Item> items;
+	private List<OrderLine> lines = new ArrayList<>();
 	
 	@ManyToOne
 	@JoinColumn(name="user_id", nullable = false, referencedColumnName = "id")
 	@JsonProperty
     private User user;
 	
+	@Column(name = "total_minor", nullable = false)
+	@JsonIgnore
+	private long totalMinor;
+
+	@Column(nullable = false, length = 3)
+	@JsonProperty
+	private String currency = Money.DEFAULT_CURRENCY;
+
 	@JsonProperty
 	@Column
-	private BigDecimal total;
+	private Instant createdAt;
 
 	public Long getId() {
 		return id;
@@ -50,12 +67,42 @@ public class UserOrder {
 		this.id = id;
 	}
 
+	public List<OrderLine> getLines() {
+		return lines;
+	}
+
+	public void setLines(List<OrderLine> lines) {
+		this.lines = lines;
+	}
+
+	/**
+	 * Expands the order lines into one entry per unit, in line order.
+	 */
+	@JsonIgnore
 	public List<Item> getItems() {
+		List<Item> items = new ArrayList<>();
+		for (OrderLine line : lines) {
+			for (int i = 0; i < line.getQuantity(); i++) {
+				items.add(line.getItem());
+			}
+		}
 		return items;
 	}
 
+	/**
+	 * Replaces the lines with one line per distinct item, priced at the item's current price.
+	 */
 	public void setItems(List<Item> items) {
-		this.items = items;
+		lines.clear();
+		if (items == null) {
+			return;
+		}
+		Map<Long, OrderLine> byItem = new LinkedHashMap<>();
+		for (Item item : items) {
+			OrderLine line = byItem.computeIfAbsent(item.getId(), id -> new OrderLine(item, 0, Money.toMinorUnits(item.getPrice(), currency)));
+			line.setQuantity(line.getQuantity() + 1);
+		}
+		lines.addAll(byItem.values());
 	}
 
 	public User getUser() {
@@ -66,19 +113,56 @@ public class UserOrder {
 		this.user = user;
 	}
 	
+	@JsonProperty("total")
 	public BigDecimal getTotal() {
-		return total;
+		return Money.fromMinorUnits(totalMinor, currency);
 	}
 
 	public void setTotal(BigDecimal total) {
-		this.total = total;
+		this.totalMinor = Money.toMinorUnits(total, currency);
+	}
+
+	public long getTotalMinor() {
+		return totalMinor;
+	}
+
+	public String getCurrency() {
+		return currency;
+	}
+
+	/**
+	 * Sums the lines from scratch, for checking the stored total.
+	 */
+	public long computeTotalMinor() {
+		long sum = 0;
+		for (OrderLine line : lines) {
+			sum = Math.addExact(sum, line.getSubtotalMinor());
+		}
+		return sum;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt) {
+		this.createdAt = createdAt;
 	}
 
+	/**
+	 * Copies the cart's lines into a new order. The order total is summed from the copied lines rather than taken
+	 * from the cart's running total.
+	 */
 	public static UserOrder createFromCart(Cart cart) {
 		UserOrder order = new UserOrder();
-		order.setItems(cart.getItems().stream().collect(Collectors.toList()));
-		order.setTotal(cart.getTotal());
+		order.currency = cart.getCurrency();
+		for (CartLine line : cart.getLines()) {
+			OrderLine copy = new OrderLine(line.getItem(), line.getQuantity(), line.getUnitPriceMinor());
+			order.getLines().add(copy);
+			order.totalMinor = Math.addExact(order.totalMinor, copy.getSubtotalMinor());
+		}
 		order.setUser(cart.getUser());
+		order.setCreatedAt(Instant.now());
 		return order;
 	}
 	
@@ -1,10 +1,50 @@
 package com.example.demo.model.persistence.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
 
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.User;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
 	Cart findByUser(User user);
+
+	/**
+	 * The cart with its user, lines and their items in one statement.
+	 */
+	@EntityGraph(Cart.WITH_LINES)
+	Optional<Cart> findWithLinesById(Long id);
+
+	/**
+	 * Locks the cart row until the transaction ends and returns its id, or null if there is no such cart. Kept to the
+	 * cart table alone: H2 does not reliably hold a lock taken by a read that joins the lines in.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select c.id from Cart c where c.id = :id")
+	Long lockById(@Param("id") Long id);
+
+	/**
+	 * Ids of carts no user points at, lowest first.
+	 */
+	@Query("select c.id from Cart c where not exists (select u.id from User u where u.cart = c) order by c.id")
+	List<Long> findOrphanIds(Pageable pageable);
+
+	@Modifying
+	@Query("delete from CartLine l where l.cart.id in :ids")
+	int deleteLinesByCartIdIn(@Param("ids") Collection<Long> ids);
+
+	@Modifying
+	@Query("delete from Cart c where c.id in :ids")
+	int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,17 @@
+package com.example.demo.model.persistence.repositories;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.model.persistence.IdempotencyRecord;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+	@Modifying
+	@Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+	int deleteByCreatedAtBefore(@Param("cutoff") Instant cutoff);
+}
@@ -1,12 +1,47 @@
 package com.example.demo.model.persistence.repositories;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.responses.OrderLineRow;
+import com.example.demo.model.responses.OrderSummary;
 
 public interface OrderRepository extends JpaRepository<UserOrder, Long> {
 	List<UserOrder> findByUser(User user);
+
+	@Query("select new com.example.demo.model.responses.OrderSummary(o.id, o.totalMinor, o.currency, sum(l.quantity), o.createdAt) " +
+		"from UserOrder o left join o.lines l where o.user.id = :userId and o.id < :beforeId " +
+		"group by o.id, o.totalMinor, o.currency, o.createdAt order by o.id desc")
+	List<OrderSummary> findSummariesByUserId(@Param("userId") long userId, @Param("beforeId") long beforeId, Pageable pageable);
+
+	/**
+	 * The user's orders as flat rows of order and line columns with the item's id and name, oldest first, in one
+	 * query and without loading any entities.
+	 */
+	@Query("select new com.example.demo.model.responses.OrderLineRow(o.id, o.totalMinor, o.currency, o.createdAt, " +
+		"i.id, i.name, l.quantity, l.unitPriceMinor) " +
+		"from UserOrder o left join o.lines l left join l.item i where o.user.id = :userId order by o.id")
+	List<OrderLineRow> findLineRowsByUserId(@Param("userId") long userId);
+
+	@Query("select new com.example.demo.model.responses.OrderLineRow(o.id, o.totalMinor, o.currency, o.createdAt, " +
+		"i.id, i.name, l.quantity, l.unitPriceMinor) " +
+		"from UserOrder o left join o.lines l left join l.item i where o.id in :ids order by o.id desc")
+	List<OrderLineRow> findLineRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * The order the user created with the given Idempotency-Key, loaded with its lines in one query.
+	 */
+	@EntityGraph(UserOrder.WITH_LINES)
+	@Query("select distinct o from UserOrder o where o.id = (select r.orderId from IdempotencyRecord r " +
+		"where r.username = :username and r.idempotencyKey = :idempotencyKey)")
+	Optional<UserOrder> findByIdempotencyKey(@Param("username") String username, @Param("idempotencyKey") String idempotencyKey);
 }
@@ -6,4 +6,6 @@ import com.example.demo.model.persistence.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 	User findByUsername(String username);
+
+	boolean existsByUsername(String username);
 }
@@ -0,0 +1,19 @@
+package com.example.demo.model.responses;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class CartBatchErrors {
+
+	@JsonProperty
+	private List<CartLineError> errors;
+
+	public CartBatchErrors(List<CartLineError> errors) {
+		this.errors = errors;
+	}
+
+	public List<CartLineError> getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.demo.model.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Why one entry of a batch cart request could not be applied.
+ */
+public class CartLineError {
+
+	/**
+	 * Position of the entry in the request's {@code items} list.
+	 */
+	@JsonProperty
+	private int index;
+
+	@JsonProperty
+	private long itemId;
+
+	@JsonProperty
+	private String error;
+
+	public CartLineError(int index, long itemId, String error) {
+		this.index = index;
+		this.itemId = itemId;
+		this.error = error;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public long getItemId() {
+		return itemId;
+	}
+
+	public String getError() {
+		return error;
+	}
+}
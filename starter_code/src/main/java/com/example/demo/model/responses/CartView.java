@@ -0,0 +1,72 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.CartLine;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * What the cart endpoints return: the lines with compact item references, the number of units and the total. Unlike
+ * the {@link Cart} entity it has no owning user and no full items to walk into.
+ */
+public class CartView {
+
+	@JsonProperty
+	private Long id;
+
+	@JsonProperty
+	private List<LineView> lines;
+
+	@JsonProperty
+	private int itemCount;
+
+	@JsonProperty
+	private BigDecimal total;
+
+	@JsonProperty
+	private String currency;
+
+	public CartView(Long id, List<LineView> lines, int itemCount, BigDecimal total, String currency) {
+		this.id = id;
+		this.lines = lines;
+		this.itemCount = itemCount;
+		this.total = total;
+		this.currency = currency;
+	}
+
+	/**
+	 * Builds the view from a cart whose lines and items are already loaded, without further queries.
+	 */
+	public static CartView from(Cart cart) {
+		List<LineView> lines = new ArrayList<>(cart.getLines().size());
+		int itemCount = 0;
+		for (CartLine line : cart.getLines()) {
+			lines.add(new LineView(line.getItemId(), line.getItem().getName(), line.getQuantity(), line.getUnitPrice()));
+			itemCount += line.getQuantity();
+		}
+		return new CartView(cart.getId(), lines, itemCount, cart.getTotal(), cart.getCurrency());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public List<LineView> getLines() {
+		return lines;
+	}
+
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	public BigDecimal getTotal() {
+		return total;
+	}
+
+	public String getCurrency() {
+		return currency;
+	}
+}
@@ -0,0 +1,46 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One line of a cart or order: a reference to the item by id and name, how many units and the unit price.
+ */
+public class LineView {
+
+	@JsonProperty
+	private long itemId;
+
+	@JsonProperty
+	private String name;
+
+	@JsonProperty
+	private int quantity;
+
+	@JsonProperty
+	private BigDecimal unitPrice;
+
+	public LineView(long itemId, String name, int quantity, BigDecimal unitPrice) {
+		this.itemId = itemId;
+		this.name = name;
+		this.quantity = quantity;
+		this.unitPrice = unitPrice;
+	}
+
+	public long getItemId() {
+		return itemId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public BigDecimal getUnitPrice() {
+		return unitPrice;
+	}
+}
@@ -0,0 +1,30 @@
+package com.example.demo.model.responses;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class OrderHistoryPage {
+
+	@JsonProperty
+	private List<OrderSummary> orders;
+
+	/**
+	 * Value to pass as {@code beforeId} to fetch the next (older) page, or null when this is the last page.
+	 */
+	@JsonProperty
+	private Long nextBeforeId;
+
+	public OrderHistoryPage(List<OrderSummary> orders, Long nextBeforeId) {
+		this.orders = orders;
+		this.nextBeforeId = nextBeforeId;
+	}
+
+	public List<OrderSummary> getOrders() {
+		return orders;
+	}
+
+	public Long getNextBeforeId() {
+		return nextBeforeId;
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.demo.model.responses;
+
+import java.time.Instant;
+
+/**
+ * One row of the flat order query: the order's own columns repeated next to each of its lines. Orders without lines
+ * come back as a single row whose line columns are null.
+ */
+public class OrderLineRow {
+
+	private final Long orderId;
+
+	private final long totalMinor;
+
+	private final String currency;
+
+	private final Instant createdAt;
+
+	private final Long itemId;
+
+	private final String name;
+
+	private final Integer quantity;
+
+	private final Long unitPriceMinor;
+
+	public OrderLineRow(Long orderId, long totalMinor, String currency, Instant createdAt,
+						Long itemId, String name, Integer quantity, Long unitPriceMinor) {
+		this.orderId = orderId;
+		this.totalMinor = totalMinor;
+		this.currency = currency;
+		this.createdAt = createdAt;
+		this.itemId = itemId;
+		this.name = name;
+		this.quantity = quantity;
+		this.unitPriceMinor = unitPriceMinor;
+	}
+
+	public Long getOrderId() {
+		return orderId;
+	}
+
+	public long getTotalMinor() {
+		return totalMinor;
+	}
+
+	public String getCurrency() {
+		return currency;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Integer getQuantity() {
+		return quantity;
+	}
+
+	public Long getUnitPriceMinor() {
+		return unitPriceMinor;
+	}
+}
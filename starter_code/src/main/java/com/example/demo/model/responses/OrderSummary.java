@@ -0,0 +1,67 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import com.example.demo.model.persistence.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class OrderSummary {
+
+	@JsonProperty
+	private Long id;
+
+	@JsonProperty
+	private BigDecimal total;
+
+	@JsonProperty
+	private String currency;
+
+	@JsonProperty
+	private int itemCount;
+
+	@JsonProperty
+	private Instant createdAt;
+
+	@JsonProperty
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private List<LineView> lines;
+
+	public OrderSummary(Long id, long totalMinor, String currency, Long itemCount, Instant createdAt) {
+		this.id = id;
+		this.total = Money.fromMinorUnits(totalMinor, currency);
+		this.currency = currency;
+		this.itemCount = itemCount == null ? 0 : itemCount.intValue();
+		this.createdAt = createdAt;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public BigDecimal getTotal() {
+		return total;
+	}
+
+	public String getCurrency() {
+		return currency;
+	}
+
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public List<LineView> getLines() {
+		return lines;
+	}
+
+	public void setLines(List<LineView> lines) {
+		this.lines = lines;
+	}
+}
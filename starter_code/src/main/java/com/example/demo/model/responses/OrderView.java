@@ -0,0 +1,89 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.demo.model.persistence.Money;
+import com.example.demo.model.persistence.OrderLine;
+import com.example.demo.model.persistence.UserOrder;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * What the order endpoints return: the lines with compact item references and the total, without the ordering user.
+ */
+public class OrderView {
+
+	@JsonProperty
+	private Long id;
+
+	@JsonProperty
+	private List<LineView> lines;
+
+	@JsonProperty
+	private BigDecimal total;
+
+	@JsonProperty
+	private String currency;
+
+	@JsonProperty
+	private Instant createdAt;
+
+	public OrderView(Long id, List<LineView> lines, BigDecimal total, String currency, Instant createdAt) {
+		this.id = id;
+		this.lines = lines;
+		this.total = total;
+		this.currency = currency;
+		this.createdAt = createdAt;
+	}
+
+	/**
+	 * Builds the view from an order whose lines are already loaded.
+	 */
+	public static OrderView from(UserOrder order) {
+		List<LineView> lines = new ArrayList<>(order.getLines().size());
+		for (OrderLine line : order.getLines()) {
+			lines.add(new LineView(line.getItem().getId(), line.getItem().getName(), line.getQuantity(), line.getUnitPrice()));
+		}
+		return new OrderView(order.getId(), lines, order.getTotal(), order.getCurrency(), order.getCreatedAt());
+	}
+
+	/**
+	 * Folds the rows of the flat order query into one view per order, keeping the order the rows came in.
+	 */
+	public static List<OrderView> fromRows(List<OrderLineRow> rows) {
+		Map<Long, OrderView> orders = new LinkedHashMap<>();
+		for (OrderLineRow row : rows) {
+			OrderView order = orders.computeIfAbsent(row.getOrderId(), id -> new OrderView(id, new ArrayList<>(),
+				Money.fromMinorUnits(row.getTotalMinor(), row.getCurrency()), row.getCurrency(), row.getCreatedAt()));
+			if (row.getItemId() != null) {
+				order.lines.add(new LineView(row.getItemId(), row.getName(), row.getQuantity(),
+					Money.fromMinorUnits(row.getUnitPriceMinor(), row.getCurrency())));
+			}
+		}
+		return new ArrayList<>(orders.values());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public List<LineView> getLines() {
+		return lines;
+	}
+
+	public BigDecimal getTotal() {
+		return total;
+	}
+
+	public String getCurrency() {
+		return currency;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+}
@@ -0,0 +1,272 @@
+package com.example.demo.search;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.ItemChangedEvent;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index over item names and descriptions. Every word is lower-cased and mapped to the ids of the
+ * items containing it; the word map is sorted so prefix queries are a range scan instead of a table scan.
+ *
+ * The index is built when the application is ready and kept current from {@link ItemChangedEvent}s once the
+ * transaction that changed the item commits.
+ */
+@Component
+public class ItemSearchIndex {
+
+    public static final Logger log = LoggerFactory.getLogger(ItemSearchIndex.class);
+
+    public enum Mode {
+        /** Every query word must appear as a whole word in the name or description. */
+        TOKEN,
+        /** Every query word must be the start of some word in the name or description. */
+        PREFIX,
+        /** The whole name must equal the query, ignoring case. */
+        NAME
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+
+    private final Map<String, Set<Long>> names = new HashMap<>();
+
+    private final Map<Long, IndexedItem> indexed = new HashMap<>();
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+
+        lock.writeLock().lock();
+
+        try {
+
+            postings.clear();
+            names.clear();
+            indexed.clear();
+
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.execute(status -> {
+                try (Stream<Item> items = itemRepository.streamAll()) {
+                    items.forEach(this::add);
+                }
+                return null;
+            });
+
+            log.info("Item search index built with {} items and {} words", indexed.size(), postings.size());
+
+        } finally {
+
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+
+        lock.writeLock().lock();
+
+        try {
+
+            remove(event.getItem().getId());
+
+            if (event.getType() == ItemChangedEvent.Type.SAVED) {
+                add(event.getItem());
+            }
+
+        } finally {
+
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of matching items in ascending order, at most {@code limit} of them.
+     */
+    public List<Long> search(String query, Mode mode, int limit) {
+
+        if (query == null || query.trim().isEmpty() || limit < 1) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+
+        try {
+
+            Set<Long> matches = mode == Mode.NAME ? names.get(normalize(query)) : matchWords(tokenize(query), mode);
+
+            if (matches == null || matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            List<Long> ids = new ArrayList<>(Math.min(limit, matches.size()));
+
+            for (Long id : new TreeSet<>(matches)) {
+
+                if (ids.size() == limit) {
+                    break;
+                }
+
+                ids.add(id);
+            }
+
+            return ids;
+
+        } finally {
+
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+
+        lock.readLock().lock();
+
+        try {
+            return indexed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> matchWords(Set<String> words, Mode mode) {
+
+        Set<Long> result = null;
+
+        for (String word : words) {
+
+            Set<Long> ids = new HashSet<>();
+
+            if (mode == Mode.PREFIX) {
+                postings.subMap(word, true, word + Character.MAX_VALUE, false).values().forEach(ids::addAll);
+            } else if (postings.containsKey(word)) {
+                ids.addAll(postings.get(word));
+            }
+
+            if (result == null) {
+                result = ids;
+            } else {
+                result.retainAll(ids);
+            }
+
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    private void add(Item item) {
+
+        if (item.getId() == null) {
+            return;
+        }
+
+        Set<String> words = tokenize(item.getName());
+        words.addAll(tokenize(item.getDescription()));
+
+        String name = normalize(item.getName());
+
+        for (String word : words) {
+            postings.computeIfAbsent(word, w -> new HashSet<>()).add(item.getId());
+        }
+
+        names.computeIfAbsent(name, n -> new HashSet<>()).add(item.getId());
+
+        indexed.put(item.getId(), new IndexedItem(name, words));
+    }
+
+    private void remove(Long id) {
+
+        IndexedItem previous = indexed.remove(id);
+
+        if (previous == null) {
+            return;
+        }
+
+        for (String word : previous.words) {
+            removePosting(postings, word, id);
+        }
+
+        removePosting(names, previous.name, id);
+    }
+
+    private static void removePosting(Map<String, Set<Long>> map, String key, Long id) {
+
+        Set<Long> ids = map.get(key);
+
+        if (ids != null) {
+
+            ids.remove(id);
+
+            if (ids.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+
+        Set<String> words = new HashSet<>();
+
+        if (text == null) {
+            return words;
+        }
+
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+
+        return words;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class IndexedItem {
+
+        private final String name;
+
+        private final Set<String> words;
+
+        private IndexedItem(String name, Set<String> words) {
+            this.name = name;
+            this.words = words;
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.example.demo.security;
 
-import com.auth0.jwt.JWT;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,9 +18,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
-
-import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
 
 public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 
@@ -27,25 +25,41 @@ public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilte
 
     private AuthenticationManager authenticationManager;
 
-    public JWTAuthenticationFilter(AuthenticationManager authenticationManager) {
+    private JWTTokenService tokenService;
+
+    private RefreshTokenStore refreshTokens;
+
+    private ObjectReader credentialsReader;
+
+    private Timer signTimer;
+
+    public JWTAuthenticationFilter(AuthenticationManager authenticationManager, JWTTokenService tokenService,
+                                   RefreshTokenStore refreshTokens, ObjectReader credentialsReader,
+                                   MeterRegistry meterRegistry) {
 
         log.info("JWTAuthenticationFilter constructor");
 
         this.authenticationManager = authenticationManager;
+        this.tokenService = tokenService;
+        this.refreshTokens = refreshTokens;
+        this.credentialsReader = credentialsReader;
+        this.signTimer = Timer.builder("jwt")
+            .description("Time spent signing and verifying tokens")
+            .tag("operation", "sign")
+            .register(meterRegistry);
     }
     
     @Override
     public Authentication attemptAuthentication(HttpServletRequest req,
                                                 HttpServletResponse res) throws AuthenticationException {
 
-        log.info("attemptAuthentication");
+        log.debug("attemptAuthentication");
 
     	try {
 
-            com.example.demo.model.persistence.User credentials = new ObjectMapper()
-                .readValue(req.getInputStream(), com.example.demo.model.persistence.User.class);
+            com.example.demo.model.persistence.User credentials = credentialsReader.readValue(req.getInputStream());
 
-            log.info("User: " + credentials.getUsername());
+            log.debug("User: {}", credentials.getUsername());
     		
     		return authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
@@ -53,27 +67,40 @@ public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilte
                             credentials.getPassword(),
                             new ArrayList<>()));
 
+    	} catch (PasswordHashingSaturatedException e) {
+
+            // Returning null ends the request without calling the success or failure handlers.
+            log.warn("Login rejected: {}", e.getMessage());
+
+            res.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            res.setHeader("Retry-After", "1");
+
+            return null;
+
     	} catch (IOException e) {
 
-    	    log.error("Authentication failure: " + e.getLocalizedMessage());
+    	    log.error("Authentication failure: {}", e.getLocalizedMessage());
 
     		throw new RuntimeException(e);
     	}
     }
     
+    /**
+     * Hands back a short-lived access token together with a refresh token that renews it without logging in again.
+     */
     @Override
     protected void successfulAuthentication(HttpServletRequest req,
                                             HttpServletResponse res,
                                             FilterChain chain,
                                             Authentication auth) throws IOException, ServletException {
 
-        String token = JWT.create()
-            .withSubject(((User) auth.getPrincipal()).getUsername())
-            .withExpiresAt(new Date(System.currentTimeMillis() + 864_000_000))
-            .sign(HMAC512(("secretkey9876").getBytes()));
+        String username = ((User) auth.getPrincipal()).getUsername();
+
+        String token = signTimer.record(() -> tokenService.sign(username));
 
-        log.info("successfulAuthentication: " + token);
+        log.debug("successfulAuthentication: {}", username);
 
         res.addHeader("Authorization", "Bearer " + token);
+        res.addHeader(RefreshTokenStore.HEADER, refreshTokens.issue(username));
     }
 }
@@ -1,13 +1,15 @@
 package com.example.demo.security;
 
-import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.example.demo.logging.LogSampler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
-import org.springframework.stereotype.Component;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -16,33 +18,59 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
 
-import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
-
-@Component
 public class JWTAuthenticationVerificationFilter extends BasicAuthenticationFilter {
 
     public static final Logger log = LoggerFactory.getLogger(JWTAuthenticationVerificationFilter.class);
 	
-	public JWTAuthenticationVerificationFilter(AuthenticationManager authManager) {
+    private final VerifiedTokenCache verifiedTokens;
+
+    private final Timer verifyTimer;
+
+    private final LogSampler debugSampler;
+
+	public JWTAuthenticationVerificationFilter(AuthenticationManager authManager, VerifiedTokenCache verifiedTokens,
+                                               MeterRegistry meterRegistry, LogSampler debugSampler) {
         super(authManager);
+        this.verifiedTokens = verifiedTokens;
+        this.debugSampler = debugSampler;
+        this.verifyTimer = Timer.builder("jwt")
+            .description("Time spent signing and verifying tokens")
+            .tag("operation", "verify")
+            .register(meterRegistry);
     }
 	
 	@Override
     protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) 
     		throws IOException, ServletException {
 
-	    log.info("doFilterInternal");
-
         String header = req.getHeader("Authorization");
 
-        log.info("Request header: " + header);
+        // The header is a credential and is never logged, only whether one was sent.
+        if (log.isDebugEnabled() && debugSampler.sample()) {
+            log.debug("doFilterInternal: {} bearer={}", req.getRequestURI(), header != null && header.startsWith("Bearer "));
+        }
 
         if (header == null || !header.startsWith("Bearer ")) {
             chain.doFilter(req, res);
             return;
         }
 
-        UsernamePasswordAuthenticationToken authentication = getAuthentication(req);
+        UsernamePasswordAuthenticationToken authentication;
+
+        try {
+
+            authentication = getAuthentication(req);
+
+        } catch (JWTVerificationException e) {
+
+            // An expired access token is how a client learns it has to refresh: carry on unauthenticated so that
+            // protected endpoints answer 401 rather than failing the request.
+            log.debug("doFilterInternal: {} rejected bearer token: {}", req.getRequestURI(), e.getMessage());
+
+            SecurityContextHolder.clearContext();
+            chain.doFilter(req, res);
+            return;
+        }
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
@@ -51,15 +79,11 @@ public class JWTAuthenticationVerificationFilter extends BasicAuthenticationFilt
 
 	private UsernamePasswordAuthenticationToken getAuthentication(HttpServletRequest req) {
 
-	    log.info("getAuthentication");
-
 		String token = req.getHeader("Authorization");
 
         if (token != null) {
 
-            String user = JWT.require(HMAC512(("secretkey9876").getBytes())).build()
-                    .verify(token.replace("Bearer ", ""))
-                    .getSubject();
+            String user = verifyTimer.record(() -> verifiedTokens.verify(token.replace("Bearer ", "")));
 
             if (user != null) {
 
@@ -0,0 +1,105 @@
+package com.example.demo.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JWTProperties {
+
+    /**
+     * Id of the key new tokens are signed with. Written to the "kid" header of every issued token.
+     */
+    private String keyId;
+
+    /**
+     * HMAC512 secret of the active signing key.
+     */
+    private String secret;
+
+    /**
+     * Lifetime of an issued access token in milliseconds. Kept short; clients renew through the refresh endpoint.
+     */
+    private long expirationMs = 900_000;
+
+    /**
+     * Lifetime of a refresh token in milliseconds, counted from the login or refresh that issued it.
+     */
+    private long refreshExpirationMs = 1_209_600_000;
+
+    /**
+     * Maximum number of refresh tokens, live or already used, remembered by {@link RefreshTokenStore}. Once full, the
+     * least recently used tokens are evicted and their sessions must log in again.
+     */
+    private long refreshMaxSize = 100_000;
+
+    /**
+     * Secrets of previous keys, by key id. Tokens signed with these are still accepted until they expire,
+     * which allows the active key to be rotated without logging everyone out.
+     */
+    private Map<String, String> retiredKeys = new HashMap<>();
+
+    /**
+     * Maximum number of verified tokens remembered by {@link VerifiedTokenCache}.
+     */
+    private long cacheMaxSize = 10_000;
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public void setKeyId(String keyId) {
+        this.keyId = keyId;
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+
+    public long getExpirationMs() {
+        return expirationMs;
+    }
+
+    public void setExpirationMs(long expirationMs) {
+        this.expirationMs = expirationMs;
+    }
+
+    public long getRefreshExpirationMs() {
+        return refreshExpirationMs;
+    }
+
+    public void setRefreshExpirationMs(long refreshExpirationMs) {
+        this.refreshExpirationMs = refreshExpirationMs;
+    }
+
+    public long getRefreshMaxSize() {
+        return refreshMaxSize;
+    }
+
+    public void setRefreshMaxSize(long refreshMaxSize) {
+        this.refreshMaxSize = refreshMaxSize;
+    }
+
+    public Map<String, String> getRetiredKeys() {
+        return retiredKeys;
+    }
+
+    public void setRetiredKeys(Map<String, String> retiredKeys) {
+        this.retiredKeys = retiredKeys;
+    }
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
+
+/**
+ * Signs and verifies the bearer tokens handed out at login. The algorithm and verifier for every configured key
+ * are built once at startup and shared by the security filters; both are thread safe.
+ */
+@Component
+public class JWTTokenService {
+
+    public static final Logger log = LoggerFactory.getLogger(JWTTokenService.class);
+
+    private final String activeKeyId;
+
+    private final Algorithm signingAlgorithm;
+
+    private final JWTVerifier activeVerifier;
+
+    private final Map<String, JWTVerifier> verifiers = new HashMap<>();
+
+    private final long expirationMs;
+
+    public JWTTokenService(JWTProperties properties) {
+
+        if (properties.getSecret() == null || properties.getSecret().isEmpty()) {
+            throw new IllegalStateException("jwt.secret must be configured");
+        }
+
+        this.activeKeyId = properties.getKeyId();
+        this.expirationMs = properties.getExpirationMs();
+        this.signingAlgorithm = algorithm(properties.getSecret());
+        this.activeVerifier = JWT.require(signingAlgorithm).build();
+
+        properties.getRetiredKeys().forEach((keyId, secret) -> verifiers.put(keyId, JWT.require(algorithm(secret)).build()));
+
+        if (activeKeyId != null) {
+            verifiers.put(activeKeyId, activeVerifier);
+        }
+
+        log.info("JWT signing key {} loaded, {} retired key(s) accepted", activeKeyId, properties.getRetiredKeys().size());
+    }
+
+    public String sign(String subject) {
+
+        return JWT.create()
+            .withKeyId(activeKeyId)
+            .withSubject(subject)
+            .withExpiresAt(new Date(System.currentTimeMillis() + expirationMs))
+            .sign(signingAlgorithm);
+    }
+
+    /**
+     * Verifies the signature and expiry of the token with the key named by its "kid" header. Tokens without a key id
+     * are checked against the active key.
+     *
+     * @throws JWTVerificationException if the token is malformed, expired, signed with an unknown key or tampered with
+     */
+    public DecodedJWT verify(String token) throws JWTVerificationException {
+
+        return verifierFor(JWT.decode(token).getKeyId()).verify(token);
+    }
+
+    private JWTVerifier verifierFor(String keyId) {
+
+        if (keyId == null) {
+            return activeVerifier;
+        }
+
+        JWTVerifier verifier = verifiers.get(keyId);
+
+        if (verifier == null) {
+            throw new JWTVerificationException("Unknown signing key: " + keyId);
+        }
+
+        return verifier;
+    }
+
+    private static Algorithm algorithm(String secret) {
+
+        return HMAC512(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a small fixed pool with a bounded queue. The calling request thread waits for the
+ * result, but at most {@code bcrypt.pool-size} hashes burn CPU at once, and once {@code bcrypt.queue-capacity}
+ * requests are waiting further ones fail fast with {@link PasswordHashingSaturatedException}.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    public static final Logger log = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+
+        this.executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(), 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getQueueCapacity()), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        this.rejected = Counter.builder("bcrypt.rejected")
+            .description("Password hashing requests rejected because the pool was saturated")
+            .register(meterRegistry);
+
+        new ExecutorServiceMetrics(executor, "bcrypt", Tags.empty()).bindTo(meterRegistry);
+
+        log.info("Password hashing pool started with {} thread(s) and a queue of {}", properties.getPoolSize(),
+            properties.getQueueCapacity());
+    }
+
+    /**
+     * Runs the task on the hashing pool and waits for its result.
+     *
+     * @throws PasswordHashingSaturatedException if the pool and its queue are full
+     */
+    public <T> T execute(Supplier<T> task) {
+
+        Future<T> future;
+
+        try {
+
+            future = executor.submit(task::get);
+
+        } catch (RejectedExecutionException e) {
+
+            rejected.increment();
+
+            throw new PasswordHashingSaturatedException();
+        }
+
+        try {
+
+            return future.get();
+
+        } catch (InterruptedException e) {
+
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+
+        } catch (ExecutionException e) {
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ThreadFactory threadFactory() {
+
+        AtomicInteger sequence = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bcrypt-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "bcrypt")
+public class PasswordHashingProperties {
+
+    /**
+     * BCrypt work factor (log2 of the number of rounds) for new hashes. Stored hashes with a different cost are
+     * rehashed the next time their owner logs in.
+     */
+    private int strength = 10;
+
+    /**
+     * Threads that hash passwords. Kept below the core count so signup and login bursts cannot take every CPU
+     * away from the other endpoints.
+     */
+    private int poolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Hashing requests that may wait for a free thread. Requests beyond this are rejected with 503.
+     */
+    private int queueCapacity = 64;
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public void setStrength(int strength) {
+        this.strength = strength;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
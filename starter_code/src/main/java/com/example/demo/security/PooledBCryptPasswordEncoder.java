@@ -0,0 +1,71 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder that hashes on the {@link PasswordHashingExecutor} pool instead of the request thread, and records
+ * how long hashing takes as the "bcrypt" timer tagged with operation "encode" for new passwords and "matches" for
+ * password checks at login.
+ *
+ * Hashes made with a cost other than the configured strength report {@link #upgradeEncoding(String)}, so Spring
+ * Security rehashes them through {@link UserDetailsServiceImpl} after a successful login.
+ */
+public class PooledBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int strength;
+
+    private final PasswordHashingExecutor executor;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    public PooledBCryptPasswordEncoder(int strength, PasswordHashingExecutor executor, MeterRegistry meterRegistry) {
+
+        super(strength);
+
+        this.strength = strength;
+        this.executor = executor;
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.matchesTimer = timer(meterRegistry, "matches");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+
+        return executor.execute(() -> encodeTimer.record(() -> super.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+
+        return executor.execute(() -> matchesTimer.record(() -> super.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+
+        if (encodedPassword == null) {
+            return false;
+        }
+
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+
+        return Timer.builder("bcrypt")
+            .description("Time spent hashing passwords")
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+}
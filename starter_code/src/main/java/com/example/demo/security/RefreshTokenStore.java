@@ -0,0 +1,169 @@
+package com.example.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opaque refresh tokens handed out next to the access token at login, held in memory so that a refresh costs a
+ * SHA-256 digest and a map lookup instead of a user lookup and a BCrypt check. Entries are keyed by the digest of the
+ * token, never the token itself, and expire {@code jwt.refresh-expiration-ms} after they were issued.
+ *
+ * Every refresh uses up the presented token and issues the next one of the same family, the chain of tokens started
+ * by one login. Presenting a used token again means it was copied, so the whole family is put on the revocation list
+ * and its current token stops working too. Tokens live in this process only; a restart or another instance behind
+ * the same load balancer sends the client back to /login.
+ *
+ * At most {@code jwt.refresh-max-size} tokens, live or already used, are held. Under more logins than that within one
+ * refresh lifetime the least recently used tokens are evicted, and the sessions they belong to have to log in again;
+ * size it to the number of sessions expected within {@code jwt.refresh-expiration-ms}. Revocations are bounded by
+ * expiry only, so a revoked family is never forgotten while one of its tokens could still be presented.
+ */
+@Component
+public class RefreshTokenStore {
+
+    public static final Logger log = LoggerFactory.getLogger(RefreshTokenStore.class);
+
+    /**
+     * Header carrying the refresh token, both in the login and refresh responses and in refresh and revoke requests.
+     */
+    public static final String HEADER = "Refresh-Token";
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Cache<String, RefreshToken> tokens;
+
+    /**
+     * Revoked families. An entry lives as long as a token, which outlasts every token issued before the revocation. Not
+     * capped by size: evicting an entry early would let a copied token of the family work again.
+     */
+    private final Cache<String, Boolean> revokedFamilies;
+
+    public RefreshTokenStore(JWTProperties properties) {
+
+        this.tokens = Caffeine.newBuilder()
+            .maximumSize(properties.getRefreshMaxSize())
+            .expireAfterWrite(properties.getRefreshExpirationMs(), TimeUnit.MILLISECONDS)
+            .build();
+        this.revokedFamilies = Caffeine.newBuilder()
+            .expireAfterWrite(properties.getRefreshExpirationMs(), TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /**
+     * Starts a new family for the subject and returns its first token.
+     */
+    public String issue(String subject) {
+
+        return issue(subject, randomToken());
+    }
+
+    /**
+     * Uses up the token and returns the next one of its family, or null if the token is unknown, expired, revoked or
+     * was already used. Of two concurrent refreshes with the same token, only one succeeds.
+     */
+    public Rotation rotate(String token) {
+
+        String digest = TokenDigests.sha256(token);
+
+        RefreshToken current = tokens.getIfPresent(digest);
+
+        if (current == null || revokedFamilies.getIfPresent(current.family) != null) {
+            return null;
+        }
+
+        if (current.used || !tokens.asMap().replace(digest, current, current.markUsed())) {
+
+            log.warn("Refresh token of {} used twice, revoking its family", current.subject);
+
+            revokedFamilies.put(current.family, Boolean.TRUE);
+            return null;
+        }
+
+        return new Rotation(current.subject, issue(current.subject, current.family));
+    }
+
+    /**
+     * Revokes the family of the token, logging out the session it belongs to. Returns false if the token is unknown.
+     */
+    public boolean revoke(String token) {
+
+        RefreshToken current = tokens.getIfPresent(TokenDigests.sha256(token));
+
+        if (current == null) {
+            return false;
+        }
+
+        revokedFamilies.put(current.family, Boolean.TRUE);
+        return true;
+    }
+
+    public long size() {
+        return tokens.estimatedSize();
+    }
+
+    private String issue(String subject, String family) {
+
+        String token = randomToken();
+
+        tokens.put(TokenDigests.sha256(token), new RefreshToken(subject, family, false));
+
+        return token;
+    }
+
+    private String randomToken() {
+
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * The subject of a refreshed token and the refresh token that replaces it.
+     */
+    public static final class Rotation {
+
+        private final String subject;
+
+        private final String token;
+
+        Rotation(String subject, String token) {
+            this.subject = subject;
+            this.token = token;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getToken() {
+            return token;
+        }
+    }
+
+    private static final class RefreshToken {
+
+        private final String subject;
+
+        private final String family;
+
+        private final boolean used;
+
+        RefreshToken(String subject, String family, boolean used) {
+            this.subject = subject;
+            this.family = family;
+            this.used = used;
+        }
+
+        RefreshToken markUsed() {
+            return new RefreshToken(subject, family, true);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * SHA-256 digests of tokens, for the in-memory token stores to key their entries by instead of the tokens themselves.
+ */
+final class TokenDigests {
+
+    private TokenDigests() {
+    }
+
+    static String sha256(String token) {
+
+        try {
+
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+
+        } catch (NoSuchAlgorithmException e) {
+
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,51 +1,78 @@
 package com.example.demo.security;
 
+import com.example.demo.cache.UserIdentity;
+import com.example.demo.cache.UserIdentityCache;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.repositories.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.rmi.server.ExportException;
 import java.util.Collections;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     public static final Logger log = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
 
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
 	@Autowired
 	private UserRepository userRepository;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        log.info("loadUserByUsername: " + username);
+        log.debug("loadUserByUsername: {}", username);
 
-        User user = null;
+        UserIdentity user = null;
 
         try {
 
-            user = userRepository.findByUsername(username);
+            user = userIdentityCache.findByUsername(username);
 
         } catch (Exception ex) {
 
-            log.error(ex.getClass().getName() + ": " + ex.getMessage());
+            log.error("{}: {}", ex.getClass().getName(), ex.getMessage());
         }
 
         if (user == null) {
 
-            log.error("Username " + username + " NOT FOUND");
+            log.error("Username {} NOT FOUND", username);
 
             throw new UsernameNotFoundException(username);
         }
 
-        log.info("Username " + username + " found in DB");
+        log.debug("Username {} found", username);
+
+        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPasswordHash(), Collections.emptyList());
+    }
+
+    /**
+     * Stores a password rehashed at login because its BCrypt cost no longer matches the configured strength.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+
+        User user = userRepository.findByUsername(userDetails.getUsername());
+
+        if (user != null) {
+
+            user.setPassword(newPassword);
+            userRepository.save(user);
+
+            log.info("Rehashed password of {}", userDetails.getUsername());
+        }
 
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), Collections.emptyList());
+        return new org.springframework.security.core.userdetails.User(userDetails.getUsername(), newPassword, userDetails.getAuthorities());
     }
 }
@@ -0,0 +1,105 @@
+package com.example.demo.security;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers tokens that already passed {@link JWTTokenService#verify(String)} so a client reusing its token only pays
+ * for a SHA-256 digest and a map lookup. Entries are keyed by the digest of the token, never the token itself, and
+ * expire at the moment the token does. Hits, misses and evictions are published as the {@code cache.*} meters tagged
+ * {@code cache=token.verified}.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JWTTokenService tokenService;
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(JWTTokenService tokenService, JWTProperties properties, MeterRegistry meterRegistry) {
+
+        this.tokenService = tokenService;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getCacheMaxSize())
+            .expireAfter(new UntilTokenExpiry())
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "token.verified");
+    }
+
+    /**
+     * Returns the subject of the token, verifying it with {@link JWTTokenService} only if it has not been seen before.
+     *
+     * @throws JWTVerificationException if the token is not in the cache and fails verification
+     */
+    public String verify(String token) throws JWTVerificationException {
+
+        String digest = TokenDigests.sha256(token);
+
+        VerifiedToken verified = cache.getIfPresent(digest);
+
+        if (verified != null && verified.expiresAtMillis > System.currentTimeMillis()) {
+            return verified.subject;
+        }
+
+        DecodedJWT decoded = tokenService.verify(token);
+
+        if (decoded.getExpiresAt() != null) {
+            cache.put(digest, new VerifiedToken(decoded.getSubject(), decoded.getExpiresAt().getTime()));
+        }
+
+        return decoded.getSubject();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    static final class VerifiedToken {
+
+        private final String subject;
+
+        private final long expiresAtMillis;
+
+        VerifiedToken(String subject, long expiresAtMillis) {
+            this.subject = subject;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAtMillis - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
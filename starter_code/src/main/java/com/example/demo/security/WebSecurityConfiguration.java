@@ -1,8 +1,12 @@
 package com.example.demo.security;
 
+import com.example.demo.json.JsonCodecs;
+import com.example.demo.logging.LogSampler;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
@@ -26,17 +30,38 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
 	@Autowired
     private BCryptPasswordEncoder bCryptPasswordEncoder;
 
+    @Autowired
+    private JWTTokenService tokenService;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
+
+    @Autowired
+    private JsonCodecs jsonCodecs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${logging.sampling.request-every:100}")
+    private long requestLogSampling;
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
 
         log.info("configure HTTPSecurity");
 
         http.cors().and().csrf().disable().authorizeRequests()
-        .antMatchers(HttpMethod.POST, "/api/user/create").permitAll()
+        .antMatchers(HttpMethod.POST, "/api/user/create", "/api/token/refresh", "/api/token/revoke").permitAll()
+        .antMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
         .anyRequest().authenticated()
         .and()
-        .addFilter(new JWTAuthenticationFilter(authenticationManager()))
-        .addFilter(new JWTAuthenticationVerificationFilter(authenticationManager()))
+        .addFilter(new JWTAuthenticationFilter(authenticationManager(), tokenService, refreshTokenStore,
+            jsonCodecs.credentialsReader(), meterRegistry))
+        .addFilter(new JWTAuthenticationVerificationFilter(authenticationManager(), verifiedTokenCache, meterRegistry,
+            new LogSampler(requestLogSampling)))
         .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
         .and()
         .exceptionHandling()
@@ -0,0 +1,117 @@
+package com.example.demo.services;
+
+import com.example.demo.cache.UserIdentity;
+import com.example.demo.cache.UserIdentityCache;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+@Service
+public class CartService {
+
+	public static final Logger log = LoggerFactory.getLogger(CartService.class);
+
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
+	@Autowired
+	private CartRepository cartRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${cart.update.max-attempts:5}")
+	private int maxAttempts;
+
+	@Value("${cart.update.retry-backoff-ms:10}")
+	private long retryBackoffMs;
+
+	/**
+	 * Locks the user's cart row, reads the cart, applies the mutation and saves it in one transaction, so concurrent
+	 * updates of one cart queue up at the lock instead of racing. The lock is a statement of its own on the cart
+	 * table; the user and line rows are not locked. {@link Cart} and its lines are also versioned, so a writer that
+	 * does not take the lock, such as an order submission, still cannot overwrite a change: a save that fails its
+	 * version check, or a line insert that collides on the unique key, is retried on a fresh copy up to
+	 * {@code cart.update.max-attempts} times with a short random back-off.
+	 *
+	 * Version checks alone are not enough on the bundled H2 1.4.199, which can put back a stale cart row when a
+	 * transaction that lost the check rolls back.
+	 *
+	 * @return the saved cart, or empty if there is no such user
+	 * @throws CartUpdateConflictException if every attempt lost to a concurrent update
+	 */
+	public Optional<Cart> update(String username, Consumer<Cart> mutation) {
+
+		UserIdentity identity = userIdentityCache.findByUsername(username);
+		if (identity == null || identity.getCartId() == null) {
+			return Optional.empty();
+		}
+
+		long cartId = identity.getCartId();
+
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+		for (int attempt = 1; ; attempt++) {
+
+			try {
+
+				return Optional.ofNullable(transaction.execute(status -> {
+
+					if (cartRepository.lockById(cartId) == null) {
+						return null;
+					}
+
+					// A user loaded earlier in the request may have left a proxy of this cart in the session
+					Cart cart = (Cart) Hibernate.unproxy(cartRepository.findWithLinesById(cartId).get());
+					mutation.accept(cart);
+					cartRepository.save(cart);
+					return cart;
+				}));
+
+			} catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+
+				if (attempt >= maxAttempts) {
+					meterRegistry.counter("cart.update.conflicts", "outcome", "exhausted").increment();
+					log.warn("update: cart of {} still conflicting after {} attempts", username, attempt);
+					throw new CartUpdateConflictException(username, e);
+				}
+
+				meterRegistry.counter("cart.update.conflicts", "outcome", "retried").increment();
+				log.debug("update: cart of {} changed concurrently, retrying (attempt {})", username, attempt);
+
+				backOff(username, attempt);
+			}
+		}
+	}
+
+	private void backOff(String username, int attempt) {
+
+		if (retryBackoffMs <= 0) {
+			return;
+		}
+
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(retryBackoffMs * attempt + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CartUpdateConflictException(username, e);
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package com.example.demo.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a cart kept being changed by concurrent requests through every retry of an update.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CartUpdateConflictException extends RuntimeException {
+
+	public CartUpdateConflictException(String username, Throwable cause) {
+		super("Cart of " + username + " was modified concurrently", cause);
+	}
+}
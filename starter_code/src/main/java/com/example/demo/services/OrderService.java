@@ -0,0 +1,81 @@
+package com.example.demo.services;
+
+import com.example.demo.cache.UserIdentity;
+import com.example.demo.cache.UserIdentityCache;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.IdempotencyRecord;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.IdempotencyRecordRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Service
+public class OrderService {
+
+	public static final Logger log = LoggerFactory.getLogger(OrderService.class);
+
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
+	@Autowired
+	private CartRepository cartRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private IdempotencyRecordRepository idempotencyRecordRepository;
+
+	/**
+	 * Returns the order the user already submitted with this Idempotency-Key, if any.
+	 */
+	@Transactional(readOnly = true)
+	public Optional<UserOrder> findSubmitted(String username, String idempotencyKey) {
+
+		return orderRepository.findByIdempotencyKey(username, idempotencyKey);
+	}
+
+	/**
+	 * Turns the user's cart into an order and empties the cart in one transaction. The order lines and the removed
+	 * cart lines are written as JDBC batches. When an Idempotency-Key is given it is recorded in the same transaction,
+	 * so a concurrent submit with the same key fails with a constraint violation and rolls back completely.
+	 *
+	 * The cart row is locked before the cart is read, as in {@link CartService#update}, so a submit and a cart update
+	 * of the same user take turns: the order holds exactly the lines present when the lock was granted and an update
+	 * waiting behind it starts from the emptied cart.
+	 *
+	 * @return the new order, or empty if there is no such user
+	 */
+	@Transactional
+	public Optional<UserOrder> submit(String username, String idempotencyKey) {
+
+		UserIdentity identity = userIdentityCache.findByUsername(username);
+		if (identity == null || identity.getCartId() == null || cartRepository.lockById(identity.getCartId()) == null) {
+			return Optional.empty();
+		}
+
+		Cart cart = cartRepository.findWithLinesById(identity.getCartId()).get();
+		if (cart.reconcileTotal()) {
+			log.warn("submit: cart {} total drifted from its lines and was recomputed", cart.getId());
+		}
+
+		UserOrder order = UserOrder.createFromCart(cart);
+		orderRepository.save(order);
+		cart.clear();
+
+		if (idempotencyKey != null) {
+			idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(username, idempotencyKey, order.getId()));
+		}
+
+		log.debug("submit: {} order {}", username, order.getId());
+
+		return Optional.of(order);
+	}
+}
@@ -0,0 +1,42 @@
+package com.example.demo.web;
+
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serves HTTP/2 over cleartext (h2c) when {@code server.http2.enabled} is set and the connector has no TLS; Spring
+ * Boot only adds HTTP/2 to TLS connectors itself. Clients get HTTP/2 by upgrading an HTTP/1.1 request or by speaking
+ * it from the first byte (prior knowledge). HTTP/2 streams are compressed with the same {@code server.compression}
+ * settings as HTTP/1.1 responses.
+ */
+@Configuration
+@ConditionalOnProperty("server.http2.enabled")
+public class Http2Configuration {
+
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> h2cCustomizer(ServerProperties serverProperties) {
+		return factory -> {
+			if (factory.getSsl() != null && factory.getSsl().isEnabled()) {
+				return;
+			}
+			factory.addConnectorCustomizers(connector ->
+				connector.addUpgradeProtocol(http2Protocol(serverProperties.getCompression())));
+		};
+	}
+
+	private static Http2Protocol http2Protocol(Compression compression) {
+		Http2Protocol http2 = new Http2Protocol();
+		if (compression.getEnabled()) {
+			http2.setCompression("on");
+			http2.setCompressionMinSize((int) compression.getMinResponseSize().toBytes());
+			http2.setCompressibleMimeType(String.join(",", compression.getMimeTypes()));
+		}
+		return http2;
+	}
+}
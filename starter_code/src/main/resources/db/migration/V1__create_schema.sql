@@ -0,0 +1,75 @@
+-- Schema as of the move from ddl-auto to versioned migrations. Only the persistent profile runs these; the
+-- in-memory default still lets Hibernate create the schema.
+
+create table item (
+    id bigint generated by default as identity,
+    name varchar(255) not null,
+    price decimal(19,2) not null,
+    description varchar(255) not null,
+    primary key (id)
+);
+
+create index idx_item_name on item (name);
+
+create table cart (
+    id bigint generated by default as identity,
+    version bigint,
+    total_minor bigint not null,
+    currency varchar(3) not null,
+    primary key (id)
+);
+
+create table cart_line (
+    id bigint generated by default as identity,
+    version bigint,
+    cart_id bigint not null,
+    item_id bigint not null,
+    quantity integer not null,
+    unit_price_minor bigint not null,
+    primary key (id),
+    constraint uk_cart_line_cart_item unique (cart_id, item_id),
+    constraint fk_cart_line_cart foreign key (cart_id) references cart (id),
+    constraint fk_cart_line_item foreign key (item_id) references item (id)
+);
+
+-- The unique constraint is the index on username used by login and every per-user lookup.
+create table user (
+    id bigint generated by default as identity,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    cart_id bigint,
+    primary key (id),
+    constraint uk_user_username unique (username),
+    constraint fk_user_cart foreign key (cart_id) references cart (id)
+);
+
+create table user_order (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    total_minor bigint not null,
+    currency varchar(3) not null,
+    created_at timestamp,
+    primary key (id),
+    constraint fk_user_order_user foreign key (user_id) references user (id)
+);
+
+create index idx_user_order_user_id on user_order (user_id);
+
+create table user_order_line (
+    order_id bigint not null,
+    item_id bigint not null,
+    quantity integer not null,
+    unit_price_minor bigint not null,
+    constraint fk_user_order_line_order foreign key (order_id) references user_order (id),
+    constraint fk_user_order_line_item foreign key (item_id) references item (id)
+);
+
+create table idempotency_record (
+    id bigint generated by default as identity,
+    username varchar(255) not null,
+    idempotency_key varchar(100) not null,
+    order_id bigint not null,
+    created_at timestamp not null,
+    primary key (id),
+    constraint uk_idempotency_record_username_key unique (username, idempotency_key)
+);
@@ -0,0 +1,217 @@
+package com.example.demo;
+
+import com.example.demo.controllers.CartController;
+import com.example.demo.controllers.OrderController;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.CartLine;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.model.responses.OrderLineRow;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hammers one cart from many threads at once. Without optimistic locking concurrent read-modify-write cycles overwrite
+ * each other and units go missing; with it every update lands exactly once. The same holds when order submissions
+ * race with the updates.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"cart.update.max-attempts=100", "cart.update.retry-backoff-ms=2"})
+public class CartConcurrencyTest {
+
+    private static final String USERNAME = "CONCURRENTCARTUSER";
+
+    private static final String SUBMIT_USERNAME = "CONCURRENTSUBMITUSER";
+
+    private static final int THREADS = 8;
+
+    private static final int ROUNDS = 25;
+
+    @Autowired
+    private CartController cartController;
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Tests that concurrent adds and removes, including every thread creating the same new line, leave exact
+     * quantities and total.
+     */
+    @Test
+    public void concurrentUpdatesAreNotLost() throws Exception {
+
+        User user = new User();
+        user.setUsername(USERNAME);
+        user.setPassword("thisIsHashed");
+        user.setCart(new Cart());
+        user.getCart().setUser(user);
+        userRepository.save(user);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+
+            for (int t = 0; t < THREADS; t++) {
+
+                tasks.add(() -> {
+
+                    modify(2L, 1, true);
+
+                    for (int i = 0; i < ROUNDS; i++) {
+                        modify(1L, 2, true);
+                        modify(1L, 1, false);
+                    }
+
+                    return null;
+                });
+            }
+
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+
+        } finally {
+
+            executor.shutdown();
+        }
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.execute(status -> {
+
+            Cart cart = cartRepository.findWithLinesById(user.getCart().getId()).get();
+
+            int round = 0;
+            int square = 0;
+            for (CartLine line : cart.getLines()) {
+                if (line.getItemId() == 1L) {
+                    round = line.getQuantity();
+                } else {
+                    square = line.getQuantity();
+                }
+            }
+
+            assertEquals(THREADS * ROUNDS, round);
+            assertEquals(THREADS, square);
+            assertEquals(new BigDecimal("2.99").multiply(BigDecimal.valueOf(THREADS * ROUNDS))
+                .add(new BigDecimal("1.99").multiply(BigDecimal.valueOf(THREADS))), cart.getTotal());
+            assertFalse(cart.reconcileTotal());
+
+            return null;
+        });
+    }
+
+    /**
+     * Tests that submits racing with adds to the same cart neither lose a unit nor order one twice: every unit added is
+     * either in exactly one order or still in the cart.
+     */
+    @Test
+    public void submitsRacingUpdatesAreNotLost() throws Exception {
+
+        User user = new User();
+        user.setUsername(SUBMIT_USERNAME);
+        user.setPassword("thisIsHashed");
+        user.setCart(new Cart());
+        user.getCart().setUser(user);
+        userRepository.save(user);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+
+            for (int t = 0; t < THREADS - 1; t++) {
+
+                tasks.add(() -> {
+
+                    for (int i = 0; i < ROUNDS; i++) {
+                        modify(SUBMIT_USERNAME, 1L, 1, true);
+                    }
+
+                    return null;
+                });
+            }
+
+            tasks.add(() -> {
+
+                for (int i = 0; i < ROUNDS; i++) {
+                    assertEquals(200, orderController.submit(SUBMIT_USERNAME, null).getStatusCodeValue());
+                }
+
+                return null;
+            });
+
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+
+        } finally {
+
+            executor.shutdown();
+        }
+
+        Cart cart = cartRepository.findWithLinesById(user.getCart().getId()).get();
+        int inCart = cart.getLines().stream().mapToInt(CartLine::getQuantity).sum();
+
+        int ordered = 0;
+        for (OrderLineRow row : orderRepository.findLineRowsByUserId(user.getId())) {
+            if (row.getQuantity() != null) {
+                assertTrue(row.getQuantity() > 0);
+                ordered += row.getQuantity();
+            }
+        }
+
+        assertEquals((THREADS - 1) * ROUNDS, ordered + inCart);
+        assertFalse(cart.reconcileTotal());
+    }
+
+    private void modify(long itemId, int quantity, boolean add) {
+        modify(USERNAME, itemId, quantity, add);
+    }
+
+    private void modify(String username, long itemId, int quantity, boolean add) {
+
+        ModifyCartRequest request = new ModifyCartRequest();
+        request.setUsername(username);
+        request.setItemId(itemId);
+        request.setQuantity(quantity);
+
+        int status = (add ? cartController.addTocart(request) : cartController.removeFromcart(request)).getStatusCodeValue();
+        assertEquals(200, status);
+    }
+}
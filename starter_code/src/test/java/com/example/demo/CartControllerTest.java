@@ -1,26 +1,48 @@
 package com.example.demo;
 
+import com.example.demo.cache.UserIdentity;
+import com.example.demo.cache.UserIdentityCache;
 import com.example.demo.controllers.CartController;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.ItemRepository;
-import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.requests.CartItemDelta;
+import com.example.demo.model.requests.ModifyCartBatchRequest;
 import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.model.responses.CartBatchErrors;
+import com.example.demo.model.responses.CartLineError;
+import com.example.demo.model.responses.CartView;
+import com.example.demo.model.responses.LineView;
+import com.example.demo.services.CartService;
+import com.example.demo.services.CartUpdateConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
@@ -29,19 +51,26 @@ public class CartControllerTest {
 
     private CartController cartController;
 
-    private UserRepository userRepository = mock(UserRepository.class);
+    private UserIdentityCache userIdentityCache = mock(UserIdentityCache.class);
 
     private CartRepository cartRepository = mock(CartRepository.class);
 
     private ItemRepository itemRepository = mock(ItemRepository.class);
 
+    private CartService cartService;
+
     @Before
     public void testInit() {
 
+        cartService = new CartService();
+        TestUtils.injectObjects(cartService, "userIdentityCache", userIdentityCache);
+        TestUtils.injectObjects(cartService, "cartRepository", cartRepository);
+        TestUtils.injectObjects(cartService, "transactionManager", mock(PlatformTransactionManager.class));
+        TestUtils.injectObjects(cartService, "meterRegistry", new SimpleMeterRegistry());
+
         cartController = new CartController();
-        TestUtils.injectObjects(cartController, "userRepository", userRepository);
-        TestUtils.injectObjects(cartController, "cartRepository", cartRepository);
         TestUtils.injectObjects(cartController, "itemRepository", itemRepository);
+        TestUtils.injectObjects(cartController, "cartService", cartService);
     }
 
     /**
@@ -69,35 +98,316 @@ public class CartControllerTest {
         item.setDescription("TEST ITEM DESCRIPTION");
 
         when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
-        when(userRepository.findByUsername("TEST")).thenReturn(user);
+        stubCart(userCart);
 
         ModifyCartRequest modifyCartRequest = new ModifyCartRequest();
         modifyCartRequest.setUsername("TEST");
         modifyCartRequest.setItemId(1L);
         modifyCartRequest.setQuantity(1);
 
-        ResponseEntity<Cart> cartResponse = cartController.addTocart(modifyCartRequest);
+        ResponseEntity<CartView> cartResponse = cartController.addTocart(modifyCartRequest);
 
         assertNotNull(cartResponse);
         assertEquals(200, cartResponse.getStatusCodeValue());
 
-        Cart cart = cartResponse.getBody();
+        CartView cart = cartResponse.getBody();
 
         assertEquals(Long.valueOf(2), cart.getId());
-        assertEquals(new BigDecimal(2.99), cart.getTotal());
-        assertEquals(1, cart.getItems().size());
-        assertNotNull(cart.getUser());
-
-        User cartUser = cart.getUser();
-        assertEquals(user.getId(), cartUser.getId());
-        assertEquals(user.getUsername(), cartUser.getUsername());
-        assertEquals(user.getPassword(), cartUser.getPassword());
-
-        Item cartItem = cart.getItems().get(0);
-        assertEquals(item.getId(), cartItem.getId());
-        assertEquals(item.getName(), cartItem.getName());
-        assertEquals(item.getDescription(), cartItem.getDescription());
-        assertEquals(item.getPrice(), cartItem.getPrice());
+        assertEquals(new BigDecimal("2.99"), cart.getTotal());
+        assertEquals(1, cart.getItemCount());
+        assertEquals(1, userCart.getItems().size());
+
+        LineView line = cart.getLines().get(0);
+        assertEquals(item.getId().longValue(), line.getItemId());
+        assertEquals(item.getName(), line.getName());
+        assertEquals(1, line.getQuantity());
+        assertEquals(new BigDecimal("2.99"), line.getUnitPrice());
+    }
+
+    /**
+     * Tests that adding many units of the same item keeps a single cart line carrying the quantity.
+     */
+    @Test
+    public void addToCartLargeQuantity() {
+
+        User user = new User();
+        user.setId(0L);
+        user.setUsername("TEST");
+        user.setPassword("TEST1234");
+
+        Cart userCart = new Cart();
+        userCart.setUser(user);
+        userCart.setId(2L);
+        user.setCart(userCart);
+
+        Item item = new Item();
+        item.setId(1L);
+        item.setName("TEST ITEM");
+        item.setPrice(new BigDecimal("2.99"));
+        item.setDescription("TEST ITEM DESCRIPTION");
+
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        stubCart(userCart);
+
+        ModifyCartRequest modifyCartRequest = new ModifyCartRequest();
+        modifyCartRequest.setUsername("TEST");
+        modifyCartRequest.setItemId(1L);
+        modifyCartRequest.setQuantity(500);
+
+        CartView cart = cartController.addTocart(modifyCartRequest).getBody();
+
+        assertEquals(1, cart.getLines().size());
+        assertEquals(500, cart.getLines().get(0).getQuantity());
+        assertEquals(new BigDecimal("1495.00"), cart.getTotal());
+
+        modifyCartRequest.setQuantity(200);
+        cart = cartController.removeFromcart(modifyCartRequest).getBody();
+
+        assertEquals(300, cart.getLines().get(0).getQuantity());
+        assertEquals(new BigDecimal("897.00"), cart.getTotal());
+
+        //Removing more than is in the cart drops the line without driving the total negative
+        modifyCartRequest.setQuantity(1000);
+        cart = cartController.removeFromcart(modifyCartRequest).getBody();
+
+        assertEquals(0, cart.getLines().size());
+        assertEquals(new BigDecimal("0.00"), cart.getTotal());
+    }
+
+    /**
+     * Tests that adds taking a line up to Integer.MAX_VALUE units are accepted, one past it is a bad request that leaves
+     * the cart as it was, and that quantities below one are rejected.
+     */
+    @Test
+    public void addToCartNearMaxQuantity() {
+
+        User user = new User();
+        user.setId(0L);
+        user.setUsername("TEST");
+        user.setPassword("TEST1234");
+
+        Cart userCart = new Cart();
+        userCart.setUser(user);
+        userCart.setId(2L);
+        user.setCart(userCart);
+
+        Item item = new Item();
+        item.setId(1L);
+        item.setName("TEST ITEM");
+        item.setPrice(new BigDecimal("2.99"));
+        item.setDescription("TEST ITEM DESCRIPTION");
+
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(itemRepository.findAllById(Collections.singletonList(1L))).thenReturn(Collections.singletonList(item));
+        stubCart(userCart);
+
+        ModifyCartRequest modifyCartRequest = new ModifyCartRequest();
+        modifyCartRequest.setUsername("TEST");
+        modifyCartRequest.setItemId(1L);
+        modifyCartRequest.setQuantity(Integer.MAX_VALUE - 1);
+
+        assertEquals(200, cartController.addTocart(modifyCartRequest).getStatusCodeValue());
+
+        modifyCartRequest.setQuantity(1);
+        CartView cart = cartController.addTocart(modifyCartRequest).getBody();
+        assertEquals(Integer.MAX_VALUE, cart.getLines().get(0).getQuantity());
+
+        assertEquals(400, cartController.addTocart(modifyCartRequest).getStatusCodeValue());
+
+        ModifyCartBatchRequest batch = new ModifyCartBatchRequest();
+        batch.setUsername("TEST");
+        batch.setItems(Collections.singletonList(new CartItemDelta(1L, 1)));
+        assertEquals(400, cartController.modifyCart(batch).getStatusCodeValue());
+
+        assertEquals(Integer.MAX_VALUE, userCart.getLines().iterator().next().getQuantity());
+        assertEquals(new BigDecimal("2.99").multiply(BigDecimal.valueOf(Integer.MAX_VALUE)), userCart.getTotal());
+        assertFalse(userCart.reconcileTotal());
+
+        batch.setItems(Collections.singletonList(new CartItemDelta(1L, Integer.MIN_VALUE)));
+        assertEquals(400, cartController.modifyCart(batch).getStatusCodeValue());
+
+        modifyCartRequest.setQuantity(0);
+        assertEquals(400, cartController.addTocart(modifyCartRequest).getStatusCodeValue());
+        assertEquals(400, cartController.removeFromcart(modifyCartRequest).getStatusCodeValue());
+        modifyCartRequest.setQuantity(-1);
+        assertEquals(400, cartController.addTocart(modifyCartRequest).getStatusCodeValue());
+        assertEquals(400, cartController.removeFromcart(modifyCartRequest).getStatusCodeValue());
+
+        assertEquals(Integer.MAX_VALUE, userCart.getLines().iterator().next().getQuantity());
+    }
+
+    /**
+     * Tests that the running total stays equal to the sum of the lines through many adds and removes, including
+     * removes of items that are not in the cart, and that a drifted total is recomputed from the lines.
+     */
+    @Test
+    public void cartTotalTracksLines() {
+
+        Cart cart = new Cart();
+
+        Item[] items = new Item[3];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new Item();
+            items[i].setId((long) i + 1);
+            items[i].setPrice(new BigDecimal("0.1").add(BigDecimal.valueOf(i)));
+        }
+
+        Item absent = new Item();
+        absent.setId(99L);
+        absent.setPrice(new BigDecimal("5.00"));
+
+        for (int i = 0; i < 10000; i++) {
+            cart.addItem(items[i % 3], i % 7 + 1);
+            cart.removeItem(items[(i + 1) % 3], i % 5 + 1);
+            cart.removeItem(absent);
+        }
+
+        assertEquals(cart.computeTotalMinor(), cart.getTotalMinor());
+        assertFalse(cart.reconcileTotal());
+        assertEquals("USD", cart.getCurrency());
+        assertEquals(2, cart.getTotal().scale());
+
+        cart.setTotal(new BigDecimal("12345.67"));
+        assertTrue(cart.reconcileTotal());
+        assertEquals(cart.computeTotalMinor(), cart.getTotalMinor());
+    }
+
+    /**
+     * Tests adding and removing several items in one batch request resolved with a single item lookup.
+     */
+    @Test
+    public void modifyCartBatch() {
+
+        User user = new User();
+        user.setUsername("TEST");
+        Cart userCart = new Cart();
+        userCart.setUser(user);
+        user.setCart(userCart);
+
+        Item round = new Item();
+        round.setId(1L);
+        round.setPrice(new BigDecimal("2.99"));
+
+        Item square = new Item();
+        square.setId(2L);
+        square.setPrice(new BigDecimal("1.99"));
+
+        userCart.addItem(square, 2);
+
+        stubCart(userCart);
+        when(itemRepository.findAllById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(round, square));
+
+        ModifyCartBatchRequest request = new ModifyCartBatchRequest();
+        request.setUsername("TEST");
+        request.setItems(Arrays.asList(new CartItemDelta(1L, 3), new CartItemDelta(2L, -1), new CartItemDelta(1L, 1)));
+
+        ResponseEntity<?> response = cartController.modifyCart(request);
+        assertEquals(200, response.getStatusCodeValue());
+
+        CartView cart = (CartView) response.getBody();
+        assertEquals(2, cart.getLines().size());
+        assertEquals(5, cart.getItemCount());
+        assertEquals(new BigDecimal("13.95"), cart.getTotal());
+        verify(itemRepository, times(1)).findAllById(any());
+        verify(cartRepository, times(1)).save(userCart);
+    }
+
+    /**
+     * Tests that a batch naming unknown items reports each of them and leaves the cart untouched.
+     */
+    @Test
+    public void modifyCartBatchUnknownItems() {
+
+        User user = new User();
+        user.setUsername("TEST");
+        Cart userCart = new Cart();
+        userCart.setUser(user);
+        user.setCart(userCart);
+
+        Item round = new Item();
+        round.setId(1L);
+        round.setPrice(new BigDecimal("2.99"));
+
+        stubCart(userCart);
+        when(itemRepository.findAllById(Arrays.asList(7L, 1L, 8L))).thenReturn(Collections.singletonList(round));
+
+        ModifyCartBatchRequest request = new ModifyCartBatchRequest();
+        request.setUsername("TEST");
+        request.setItems(Arrays.asList(new CartItemDelta(7L, 1), new CartItemDelta(1L, 1), new CartItemDelta(8L, 1)));
+
+        ResponseEntity<?> response = cartController.modifyCart(request);
+        assertEquals(404, response.getStatusCodeValue());
+
+        List<CartLineError> errors = ((CartBatchErrors) response.getBody()).getErrors();
+        assertEquals(2, errors.size());
+        assertEquals(0, errors.get(0).getIndex());
+        assertEquals(7L, errors.get(0).getItemId());
+        assertEquals(2, errors.get(1).getIndex());
+        assertEquals(8L, errors.get(1).getItemId());
+
+        assertEquals(0, userCart.getLines().size());
+        verify(cartRepository, never()).save(any());
+
+        request.setItems(Collections.emptyList());
+        assertEquals(400, cartController.modifyCart(request).getStatusCodeValue());
+        request.setUsername("NOTFOUND");
+        request.setItems(Collections.singletonList(new CartItemDelta(1L, 1)));
+        assertEquals(404, cartController.modifyCart(request).getStatusCodeValue());
+    }
+
+    /**
+     * Tests that a batch with a null entry or without a username is rejected as a bad request.
+     */
+    @Test
+    public void modifyCartBatchMissingFields() {
+
+        ModifyCartBatchRequest request = new ModifyCartBatchRequest();
+        request.setUsername("TEST");
+        request.setItems(Arrays.asList(new CartItemDelta(1L, 1), null));
+        assertEquals(400, cartController.modifyCart(request).getStatusCodeValue());
+
+        request.setUsername(null);
+        request.setItems(Collections.singletonList(new CartItemDelta(1L, 1)));
+        assertEquals(400, cartController.modifyCart(request).getStatusCodeValue());
+
+        verify(cartRepository, never()).save(any());
+    }
+
+    /**
+     * Tests that a save that keeps losing to concurrent updates is retried a bounded number of times and then
+     * reported as a conflict.
+     */
+    @Test
+    public void addToCartConflict() {
+
+        User user = new User();
+        user.setUsername("TEST");
+        Cart userCart = new Cart();
+        userCart.setId(2L);
+        userCart.setUser(user);
+        user.setCart(userCart);
+
+        Item item = new Item();
+        item.setId(1L);
+        item.setPrice(new BigDecimal("2.99"));
+
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        stubCart(userCart);
+        when(cartRepository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(Cart.class, 2L));
+        TestUtils.injectObjects(cartService, "maxAttempts", 3);
+        TestUtils.injectObjects(cartService, "retryBackoffMs", 0L);
+
+        ModifyCartRequest modifyCartRequest = new ModifyCartRequest();
+        modifyCartRequest.setUsername("TEST");
+        modifyCartRequest.setItemId(1L);
+        modifyCartRequest.setQuantity(1);
+
+        try {
+            cartController.addTocart(modifyCartRequest);
+            fail("Expected a conflict");
+        } catch (CartUpdateConflictException expected) {
+            verify(cartRepository, times(3)).save(any());
+        }
     }
 
     /**
@@ -111,7 +421,7 @@ public class CartControllerTest {
         modifyCartRequest.setItemId(1L);
         modifyCartRequest.setQuantity(1);
 
-        ResponseEntity<Cart> cart = cartController.addTocart(modifyCartRequest);
+        ResponseEntity<CartView> cart = cartController.addTocart(modifyCartRequest);
 
         assertEquals(404, cart.getStatusCodeValue());
     }
@@ -133,14 +443,14 @@ public class CartControllerTest {
         userCart.setId(2L);
         user.setCart(userCart);
 
-        when(userRepository.findByUsername("TEST")).thenReturn(user);
+        stubCart(userCart);
 
         ModifyCartRequest modifyCartRequest = new ModifyCartRequest();
         modifyCartRequest.setUsername("TEST");
         modifyCartRequest.setItemId(1L);
         modifyCartRequest.setQuantity(1);
 
-        ResponseEntity<Cart> cart = cartController.addTocart(modifyCartRequest);
+        ResponseEntity<CartView> cart = cartController.addTocart(modifyCartRequest);
 
         assertEquals(404, cart.getStatusCodeValue());
     }
@@ -171,20 +481,21 @@ public class CartControllerTest {
         user.setCart(userCart);
 
         when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
-        when(userRepository.findByUsername("TEST")).thenReturn(user);
+        stubCart(userCart);
 
         ModifyCartRequest modifyCartRequest = new ModifyCartRequest();
         modifyCartRequest.setUsername("TEST");
         modifyCartRequest.setItemId(1L);
         modifyCartRequest.setQuantity(1);
 
-        ResponseEntity<Cart> cartResponse = cartController.removeFromcart(modifyCartRequest);
+        ResponseEntity<CartView> cartResponse = cartController.removeFromcart(modifyCartRequest);
 
         assertNotNull(cartResponse);
         assertEquals(200, cartResponse.getStatusCodeValue());
 
-        Cart cart = cartResponse.getBody();
-        assertEquals(0, cart.getItems().size());
+        CartView cart = cartResponse.getBody();
+        assertEquals(0, cart.getItemCount());
+        assertEquals(0, cart.getLines().size());
 
     }
 
@@ -199,7 +510,7 @@ public class CartControllerTest {
         modifyCartRequest.setItemId(1L);
         modifyCartRequest.setQuantity(1);
 
-        ResponseEntity<Cart> cartResponse = cartController.removeFromcart(modifyCartRequest);
+        ResponseEntity<CartView> cartResponse = cartController.removeFromcart(modifyCartRequest);
 
         assertNotNull(cartResponse);
         assertEquals(404, cartResponse.getStatusCodeValue());
@@ -218,16 +529,27 @@ public class CartControllerTest {
         user.setUsername("TEST");
         user.setPassword("TEST1234");
 
-        when(userRepository.findByUsername("TEST")).thenReturn(user);
+        stubCart(new Cart());
 
         ModifyCartRequest modifyCartRequest = new ModifyCartRequest();
         modifyCartRequest.setUsername("TEST");
         modifyCartRequest.setItemId(1L);
         modifyCartRequest.setQuantity(1);
 
-        ResponseEntity<Cart> cartResponse = cartController.removeFromcart(modifyCartRequest);
+        ResponseEntity<CartView> cartResponse = cartController.removeFromcart(modifyCartRequest);
 
         assertNotNull(cartResponse);
         assertEquals(404, cartResponse.getStatusCodeValue());
     }
+
+    /**
+     * Stubs the lookups the cart service makes for user TEST: the identity carrying the cart id, the row lock and the
+     * cart itself.
+     */
+    private void stubCart(Cart cart) {
+
+        when(userIdentityCache.findByUsername("TEST")).thenReturn(new UserIdentity(0L, "TEST", "TEST1234", 2L));
+        when(cartRepository.lockById(2L)).thenReturn(2L);
+        when(cartRepository.findWithLinesById(2L)).thenReturn(Optional.of(cart));
+    }
 }
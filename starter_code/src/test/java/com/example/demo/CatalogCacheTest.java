@@ -0,0 +1,195 @@
+package com.example.demo;
+
+import com.example.demo.cache.CatalogResponseCache;
+import com.example.demo.metrics.QueryCounter;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.ItemChangedEvent;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.security.JWTTokenService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "cache.catalog.gzip-min-bytes=0")
+@AutoConfigureMockMvc
+public class CatalogCacheTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JWTTokenService tokenService;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private String authorization;
+
+    @Before
+    public void testInit() {
+
+        authorization = "Bearer " + tokenService.sign("CATALOGCACHEUSER");
+    }
+
+    /**
+     * Tests that catalog responses carry validators and that a current ETag or date gets a 304.
+     */
+    @Test
+    public void conditionalGet() throws Exception {
+
+        MockHttpServletResponse first = mvc.perform(get("/api/item").header(HttpHeaders.AUTHORIZATION, authorization))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, max-age=60"))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andReturn().getResponse();
+
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mvc.perform(get("/api/item").header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        mvc.perform(get("/api/item").header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HttpHeaders.IF_MODIFIED_SINCE, first.getHeader(HttpHeaders.LAST_MODIFIED)))
+            .andExpect(status().isNotModified());
+
+        mvc.perform(get("/api/item").header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+            .andExpect(status().isOk());
+
+        //Unauthenticated requests are still refused, even with a current ETag
+        mvc.perform(get("/api/item").header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Tests that repeat fetches are served from the stored body without touching the database, gzip-encoded on request.
+     */
+    @Test
+    public void cachedBodies() throws Exception {
+
+        String body = mvc.perform(get("/api/item/name/Round Widget").header(HttpHeaders.AUTHORIZATION, authorization))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        MockHttpServletResponse repeat = mvc.perform(get("/api/item/name/Round Widget")
+            .header(HttpHeaders.AUTHORIZATION, authorization))
+            .andExpect(status().isOk())
+            .andReturn().getResponse();
+        assertEquals(0, queryCounter.count());
+        assertEquals(body, repeat.getContentAsString());
+
+        MockHttpServletResponse gzipped = mvc.perform(get("/api/item/name/Round Widget")
+            .header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andExpect(header().string(HttpHeaders.ETAG, containsString("-gzip")))
+            .andReturn().getResponse();
+        assertEquals(body, gunzip(gzipped.getContentAsByteArray()));
+    }
+
+    /**
+     * Tests that a committed item change moves the ETag and drops the stored bodies.
+     */
+    @Test
+    public void itemChangeMovesVersion() throws Exception {
+
+        String before = mvc.perform(get("/api/item/1").header(HttpHeaders.AUTHORIZATION, authorization))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Item item = itemRepository.findById(1L).get();
+        eventPublisher.publishEvent(new ItemChangedEvent(item, ItemChangedEvent.Type.SAVED));
+
+        assertEquals(0, catalogResponseCache.size());
+
+        String after = mvc.perform(get("/api/item/1").header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HttpHeaders.IF_NONE_MATCH, before))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(before, after);
+    }
+
+    /**
+     * Tests that an item change within the same second as the previous version still fails the old If-Modified-Since.
+     */
+    @Test
+    public void itemChangeMovesLastModified() throws Exception {
+
+        Item item = itemRepository.findById(2L).get();
+        eventPublisher.publishEvent(new ItemChangedEvent(item, ItemChangedEvent.Type.SAVED));
+
+        String before = mvc.perform(get("/api/item/2").header(HttpHeaders.AUTHORIZATION, authorization))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        eventPublisher.publishEvent(new ItemChangedEvent(item, ItemChangedEvent.Type.SAVED));
+
+        String after = mvc.perform(get("/api/item/2").header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HttpHeaders.IF_MODIFIED_SINCE, before))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        assertNotEquals(before, after);
+    }
+
+    /**
+     * Tests that a conditional request for an item that does not exist gets its 404 rather than a 304.
+     */
+    @Test
+    public void conditionalGetUnknownItem() throws Exception {
+
+        String etag = mvc.perform(get("/api/item").header(HttpHeaders.AUTHORIZATION, authorization))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/item/999999").header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotFound());
+
+        mvc.perform(get("/api/item/999999").header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 31 Dec 9999 23:59:59 GMT"))
+            .andExpect(status().isNotFound());
+    }
+
+    private static String gunzip(byte[] gzipped) throws Exception {
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return new String(StreamUtils.copyToByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Drives the whole checkout flow over HTTP against the application on a random port and writes latency percentiles
+ * and throughput per endpoint to a JSON report. Only runs when loadtest.enabled is set; use "mvn -Ploadtest test".
+ *
+ * Every virtual user creates an account, logs in and then runs its iterations: each adds an item to the cart,
+ * every loadtest.submit-every-th also submits the order, and every loadtest.history-every-th reads the history.
+ * A warm-up round with the same shape runs first and is not recorded.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CheckoutLoadTest {
+
+    public static final Logger log = LoggerFactory.getLogger(CheckoutLoadTest.class);
+
+    private static final String PASSWORD = "LOADTEST123";
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 8);
+
+    private final int users = Integer.getInteger("loadtest.users", 64);
+
+    private final int warmupUsers = Integer.getInteger("loadtest.warmup-users", 16);
+
+    private final int iterations = Integer.getInteger("loadtest.iterations", 20);
+
+    private final int submitEvery = Integer.getInteger("loadtest.submit-every", 5);
+
+    private final int historyEvery = Integer.getInteger("loadtest.history-every", 10);
+
+    private final String report = System.getProperty("loadtest.report", "target/loadtest/checkout.json");
+
+    @BeforeClass
+    public static void enabled() {
+        assumeTrue("Load test disabled, set -Dloadtest.enabled=true", Boolean.getBoolean("loadtest.enabled"));
+    }
+
+    @Test
+    public void checkoutFlow() throws Exception {
+
+        run(warmupUsers, new LatencyRecorder());
+
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        long elapsed = run(users, recorder);
+
+        Map<String, LatencyRecorder.EndpointSummary> endpoints = recorder.summarize(elapsed);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("concurrency", concurrency);
+        result.put("users", users);
+        result.put("iterations", iterations);
+        result.put("submitEvery", submitEvery);
+        result.put("historyEvery", historyEvery);
+        result.put("elapsedMs", elapsed / 1_000_000);
+        result.put("endpoints", endpoints);
+
+        File file = new File(report);
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(file, result);
+
+        endpoints.forEach((endpoint, summary) -> log.info("{}: {} requests, {} errors, {}/s, p50 {} ms, p95 {} ms, p99 {} ms",
+            endpoint, summary.count, summary.errors, Math.round(summary.throughputPerSecond),
+            summary.p50Ms, summary.p95Ms, summary.p99Ms));
+        log.info("Load test report written to {}", file.getAbsolutePath());
+
+        endpoints.forEach((endpoint, summary) -> assertEquals(endpoint + " errors", 0, summary.errors));
+    }
+
+    /**
+     * Runs the given number of virtual users, at most {@link #concurrency} at a time, and returns the wall clock time.
+     */
+    private long run(int userCount, LatencyRecorder recorder) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+
+        try {
+
+            long start = System.nanoTime();
+
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < userCount; i++) {
+                futures.add(executor.submit(() -> virtualUser(recorder)));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            return System.nanoTime() - start;
+
+        } finally {
+
+            executor.shutdownNow();
+        }
+    }
+
+    private void virtualUser(LatencyRecorder recorder) {
+
+        String username = "loadtest" + USER_SEQUENCE.incrementAndGet();
+
+        HttpHeaders json = new HttpHeaders();
+        json.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<String> created = exchange(recorder, "create", "/api/user/create", HttpMethod.POST, new HttpEntity<>(
+            "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\",\"confirmPassword\":\"" + PASSWORD + "\"}", json));
+
+        if (!created.getStatusCode().is2xxSuccessful()) {
+            return;
+        }
+
+        ResponseEntity<String> login = exchange(recorder, "login", "/login", HttpMethod.POST, new HttpEntity<>(
+            "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}", json));
+
+        String authorization = login.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (authorization == null) {
+            return;
+        }
+
+        HttpHeaders authorized = new HttpHeaders();
+        authorized.setContentType(MediaType.APPLICATION_JSON);
+        authorized.set(HttpHeaders.AUTHORIZATION, authorization);
+
+        for (int i = 1; i <= iterations; i++) {
+
+            long itemId = ThreadLocalRandom.current().nextInt(2) + 1;
+
+            exchange(recorder, "addToCart", "/api/cart/addToCart", HttpMethod.POST, new HttpEntity<>(
+                "{\"username\":\"" + username + "\",\"itemId\":" + itemId + ",\"quantity\":1}", authorized));
+
+            if (i % submitEvery == 0) {
+                exchange(recorder, "submit", "/api/order/submit/" + username, HttpMethod.POST, new HttpEntity<>(authorized));
+            }
+
+            if (i % historyEvery == 0) {
+                exchange(recorder, "history", "/api/order/history/" + username, HttpMethod.GET, new HttpEntity<>(authorized));
+            }
+        }
+    }
+
+    private ResponseEntity<String> exchange(LatencyRecorder recorder, String endpoint, String url, HttpMethod method,
+                                            HttpEntity<?> entity) {
+
+        long start = System.nanoTime();
+
+        ResponseEntity<String> response = restTemplate.exchange(url, method, entity, String.class);
+
+        recorder.record(endpoint, System.nanoTime() - start, response.getStatusCode().is2xxSuccessful());
+
+        return response;
+    }
+}
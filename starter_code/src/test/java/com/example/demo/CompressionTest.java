@@ -0,0 +1,79 @@
+package com.example.demo;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.http2.Http2Protocol;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs against the embedded Tomcat, which is where responses are compressed and HTTP/2 is negotiated. Uses a database of
+ * its own so that its start-up seeding does not add to the items the other tests see.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.datasource.url=jdbc:h2:mem:compressiontest;DB_CLOSE_DELAY=-1")
+public class CompressionTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    /**
+     * Tests that a response above the minimum size is gzip-encoded for a client that accepts it and one below is not.
+     */
+    @Test
+    public void compressesLargeResponses() throws Exception {
+
+        HttpURLConnection large = open("/actuator/prometheus");
+        assertEquals(200, large.getResponseCode());
+        assertEquals("gzip", large.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+        try (InputStream body = new GZIPInputStream(large.getInputStream())) {
+            assertTrue(body.read() != -1);
+        }
+
+        HttpURLConnection small = open("/actuator/health");
+        assertEquals(200, small.getResponseCode());
+        assertNull(small.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    /**
+     * Tests that the plain-text connector offers HTTP/2, compressed like HTTP/1.1.
+     */
+    @Test
+    public void offersCleartextHttp2() {
+
+        Connector connector = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector();
+
+        Http2Protocol http2 = Arrays.stream(connector.findUpgradeProtocols())
+            .filter(Http2Protocol.class::isInstance)
+            .map(Http2Protocol.class::cast)
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("no HTTP/2 upgrade protocol"));
+
+        assertEquals("on", http2.getCompression());
+        assertEquals(1024, http2.getCompressionMinSize());
+    }
+
+    private HttpURLConnection open(String path) throws Exception {
+
+        URL url = new URL("http://localhost:" + context.getWebServer().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return connection;
+    }
+}
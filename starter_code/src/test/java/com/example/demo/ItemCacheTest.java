@@ -0,0 +1,93 @@
+package com.example.demo;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Tests that repeated lookups by id are served from the second-level cache and counted as hits.
+     */
+    @Test
+    public void findByIdIsCached() {
+
+        Cache cache = entityManagerFactory.getCache();
+
+        cache.evict(Item.class);
+
+        double hits = hits();
+
+        //The region statistics are read over JMX and come back as NaN if the binding cannot find them
+        assertFalse(Double.isNaN(hits));
+
+        Item first = itemRepository.findById(1L).get();
+
+        assertTrue(cache.contains(Item.class, 1L));
+
+        Item second = itemRepository.findById(1L).get();
+
+        assertEquals(first, second);
+        assertEquals(first.getName(), second.getName());
+        assertEquals(hits + 1, hits(), 0);
+    }
+
+    /**
+     * Tests that an explicit eviction makes the next lookup see a change written outside of Hibernate.
+     */
+    @Test
+    public void evictAfterJdbcWrite() {
+
+        Cache cache = entityManagerFactory.getCache();
+
+        String name = itemRepository.findById(2L).get().getName();
+
+        try {
+
+            jdbcTemplate.update("update item set name = ? where id = ?", "Renamed Widget", 2L);
+
+            assertEquals(name, itemRepository.findById(2L).get().getName());
+
+            cache.evict(Item.class, 2L);
+
+            assertFalse(cache.contains(Item.class, 2L));
+            assertEquals("Renamed Widget", itemRepository.findById(2L).get().getName());
+
+        } finally {
+
+            jdbcTemplate.update("update item set name = ? where id = ?", name, 2L);
+            cache.evict(Item.class, 2L);
+        }
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "item").tag("result", "hit").functionCounter().count();
+    }
+}
@@ -1,22 +1,33 @@
 package com.example.demo;
 
 import com.example.demo.controllers.ItemController;
+import com.example.demo.json.JsonCodecs;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.search.ItemSearchIndex;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
@@ -27,11 +38,18 @@ public class ItemControllerTest {
 
     private ItemRepository itemRepository = mock(ItemRepository.class);
 
+    private EntityManager entityManager = mock(EntityManager.class);
+
+    private ItemSearchIndex itemSearchIndex = mock(ItemSearchIndex.class);
+
     @Before
     public void initTest() {
 
         itemController = new ItemController();
         TestUtils.injectObjects(itemController, "itemRepository", itemRepository);
+        TestUtils.injectObjects(itemController, "jsonCodecs", new JsonCodecs(new ObjectMapper()));
+        TestUtils.injectObjects(itemController, "entityManager", entityManager);
+        TestUtils.injectObjects(itemController, "itemSearchIndex", itemSearchIndex);
     }
 
     /**
@@ -129,4 +147,92 @@ public class ItemControllerTest {
 
         assertEquals(1, returnedItems.size());
     }
+
+    /**
+     * Tests offset and keyset pagination of the catalog.
+     */
+    @Test
+    public void getItemsPage() {
+
+        Item item = new Item();
+        item.setId(5L);
+        item.setName("TEST ITEM 5");
+        item.setDescription("TEST ITEM 5 DESCRIPTION");
+        item.setPrice(new BigDecimal("1.99"));
+
+        List<Item> items = new ArrayList<>();
+        items.add(item);
+
+        when(itemRepository.findAllBy(PageRequest.of(2, 10, Sort.by("id")))).thenReturn(new SliceImpl<>(items));
+        when(itemRepository.findByIdGreaterThanOrderByIdAsc(4L, PageRequest.of(0, 10))).thenReturn(items);
+
+        ResponseEntity<List<Item>> pageResponse = itemController.getItemsPage(2, 10, null);
+        assertEquals(200, pageResponse.getStatusCodeValue());
+        assertEquals(items, pageResponse.getBody());
+
+        ResponseEntity<List<Item>> keysetResponse = itemController.getItemsPage(0, 10, 4L);
+        assertEquals(200, keysetResponse.getStatusCodeValue());
+        assertEquals(items, keysetResponse.getBody());
+
+        //Page sizes outside of the allowed range are rejected
+        assertEquals(400, itemController.getItemsPage(0, 0, null).getStatusCodeValue());
+        assertEquals(400, itemController.getItemsPage(0, ItemController.MAX_PAGE_SIZE + 1, null).getStatusCodeValue());
+    }
+
+    /**
+     * Tests that streaming writes every item as one JSON array and detaches each item once written.
+     */
+    @Test
+    public void streamItems() throws Exception {
+
+        Item item1 = new Item();
+        item1.setId(0L);
+        item1.setName("TEST ITEM 1");
+        item1.setDescription("TEST ITEM 1 DESCRIPTION");
+        item1.setPrice(new BigDecimal("1.99"));
+
+        Item item2 = new Item();
+        item2.setId(1L);
+        item2.setName("TEST ITEM 2");
+        item2.setDescription("TEST ITEM 2 DESCRIPTION");
+        item2.setPrice(new BigDecimal("2.99"));
+
+        when(itemRepository.streamAll()).thenReturn(Arrays.asList(item1, item2).stream());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        itemController.streamItems(response);
+
+        Item[] returnedItems = new ObjectMapper().readValue(response.getContentAsByteArray(), Item[].class);
+
+        assertEquals(2, returnedItems.length);
+        assertEquals(item2.getName(), returnedItems[1].getName());
+        verify(entityManager).detach(item1);
+        verify(entityManager).detach(item2);
+    }
+
+    /**
+     * Tests that search results are resolved from the index and returned in id order.
+     */
+    @Test
+    public void searchItems() {
+
+        Item item1 = new Item();
+        item1.setId(1L);
+        item1.setName("TEST ITEM 1");
+
+        Item item2 = new Item();
+        item2.setId(2L);
+        item2.setName("TEST ITEM 2");
+
+        when(itemSearchIndex.search("test", ItemSearchIndex.Mode.PREFIX, 10)).thenReturn(Arrays.asList(1L, 2L));
+        when(itemRepository.findAllById(Arrays.asList(1L, 2L))).thenReturn(new ArrayList<>(Arrays.asList(item2, item1)));
+
+        ResponseEntity<List<Item>> searchResponse = itemController.searchItems("test", "prefix", 10);
+
+        assertEquals(200, searchResponse.getStatusCodeValue());
+        assertEquals(Arrays.asList(item1, item2), searchResponse.getBody());
+
+        //Unknown modes are rejected
+        assertEquals(400, itemController.searchItems("test", "fuzzy", 10).getStatusCodeValue());
+    }
 }
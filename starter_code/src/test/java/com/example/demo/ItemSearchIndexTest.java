@@ -0,0 +1,69 @@
+package com.example.demo;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.search.ItemSearchIndex;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DirtiesContext
+public class ItemSearchIndexTest {
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    /**
+     * Tests the three search modes against the items seeded by data.sql.
+     */
+    @Test
+    public void searchSeededItems() {
+
+        assertEquals(Collections.singletonList(1L), itemSearchIndex.search("ROUND", ItemSearchIndex.Mode.TOKEN, 10));
+        assertEquals(Arrays.asList(1L, 2L), itemSearchIndex.search("widget", ItemSearchIndex.Mode.TOKEN, 10));
+        assertEquals(Collections.singletonList(1L), itemSearchIndex.search("widget", ItemSearchIndex.Mode.TOKEN, 1));
+        assertEquals(Collections.singletonList(2L), itemSearchIndex.search("squ wid", ItemSearchIndex.Mode.PREFIX, 10));
+        assertEquals(Collections.emptyList(), itemSearchIndex.search("squ", ItemSearchIndex.Mode.TOKEN, 10));
+        assertEquals(Collections.singletonList(2L), itemSearchIndex.search(" square WIDGET ", ItemSearchIndex.Mode.NAME, 10));
+        assertEquals(Collections.emptyList(), itemSearchIndex.search("square", ItemSearchIndex.Mode.NAME, 10));
+    }
+
+    /**
+     * Tests that the index follows items as they are created, renamed and deleted.
+     */
+    @Test
+    public void searchFollowsItemChanges() {
+
+        Item item = new Item();
+        item.setName("Triangle Gadget");
+        item.setDescription("A gadget with three corners");
+        item.setPrice(new BigDecimal("3.99"));
+        item = itemRepository.save(item);
+
+        assertEquals(Collections.singletonList(item.getId()), itemSearchIndex.search("tri", ItemSearchIndex.Mode.PREFIX, 10));
+
+        item.setName("Hexagon Gadget");
+        item = itemRepository.save(item);
+
+        assertEquals(Collections.emptyList(), itemSearchIndex.search("triangle", ItemSearchIndex.Mode.TOKEN, 10));
+        assertEquals(Collections.singletonList(item.getId()), itemSearchIndex.search("hexagon", ItemSearchIndex.Mode.TOKEN, 10));
+
+        itemRepository.delete(item);
+
+        assertEquals(Collections.emptyList(), itemSearchIndex.search("gadget", ItemSearchIndex.Mode.TOKEN, 10));
+    }
+}
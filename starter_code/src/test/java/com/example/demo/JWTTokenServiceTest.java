@@ -0,0 +1,77 @@
+package com.example.demo;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.example.demo.security.JWTProperties;
+import com.example.demo.security.JWTTokenService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class JWTTokenServiceTest {
+
+    private JWTProperties properties;
+
+    @Before
+    public void testInit() {
+
+        properties = new JWTProperties();
+        properties.setKeyId("k1");
+        properties.setSecret("TESTSECRET1");
+    }
+
+    /**
+     * Tests that a signed token verifies and carries the subject.
+     */
+    @Test
+    public void signAndVerify() {
+
+        JWTTokenService tokenService = new JWTTokenService(properties);
+
+        String token = tokenService.sign("TESTUSER");
+
+        assertEquals("TESTUSER", tokenService.verify(token).getSubject());
+        assertEquals("k1", tokenService.verify(token).getKeyId());
+    }
+
+    /**
+     * Tests that tokens signed with a retired key are still accepted after the active key is rotated.
+     */
+    @Test
+    public void verifyAfterKeyRotation() {
+
+        String oldToken = new JWTTokenService(properties).sign("TESTUSER");
+
+        JWTProperties rotated = new JWTProperties();
+        rotated.setKeyId("k2");
+        rotated.setSecret("TESTSECRET2");
+        rotated.setRetiredKeys(Collections.singletonMap("k1", "TESTSECRET1"));
+
+        JWTTokenService tokenService = new JWTTokenService(rotated);
+
+        assertEquals("TESTUSER", tokenService.verify(oldToken).getSubject());
+        assertEquals("k2", tokenService.verify(tokenService.sign("TESTUSER")).getKeyId());
+    }
+
+    /**
+     * Tests that a token signed with a key that is no longer configured is rejected.
+     */
+    @Test(expected = JWTVerificationException.class)
+    public void verifyUnknownKey() {
+
+        String oldToken = new JWTTokenService(properties).sign("TESTUSER");
+
+        JWTProperties rotated = new JWTProperties();
+        rotated.setKeyId("k2");
+        rotated.setSecret("TESTSECRET2");
+
+        new JWTTokenService(rotated).verify(oldToken);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo;
+
+import com.example.demo.json.JsonCodecs;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class JsonCodecsTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JsonCodecs jsonCodecs;
+
+    /**
+     * Tests that the mapper Spring MVC writes responses with generates its accessors.
+     */
+    @Test
+    public void mapperUsesAfterburner() {
+
+        assertTrue(objectMapper.getRegisteredModuleIds().contains(new AfterburnerModule().getTypeId()));
+    }
+
+    /**
+     * Tests that the shared readers and writers produce the same JSON as the mapper itself.
+     */
+    @Test
+    public void codecsMatchMapper() throws Exception {
+
+        User credentials = jsonCodecs.credentialsReader().readValue("{\"username\":\"JSONUSER\",\"password\":\"TEST12345\"}");
+        assertEquals("JSONUSER", credentials.getUsername());
+        assertEquals("TEST12345", credentials.getPassword());
+
+        Item item = new Item();
+        item.setId(7L);
+        item.setName("Round Widget");
+        item.setPrice(new BigDecimal("2.99"));
+        item.setDescription("A widget that is round");
+
+        assertEquals(objectMapper.writeValueAsString(item), jsonCodecs.itemWriter().writeValueAsString(item));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects request latencies per endpoint from many threads and summarizes them as percentiles and throughput.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, Samples> samples = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public void record(String endpoint, long nanos, boolean success) {
+
+        samples.computeIfAbsent(endpoint, e -> new Samples()).add(nanos, success);
+    }
+
+    /**
+     * One summary per endpoint, in the order the endpoints were first recorded. Throughput is requests per second
+     * over the whole run, since all endpoints share the same virtual users.
+     */
+    public Map<String, EndpointSummary> summarize(long elapsedNanos) {
+
+        Map<String, EndpointSummary> summaries = new LinkedHashMap<>();
+
+        synchronized (samples) {
+            samples.forEach((endpoint, endpointSamples) -> summaries.put(endpoint, endpointSamples.summarize(elapsedNanos)));
+        }
+
+        return summaries;
+    }
+
+    private static final class Samples {
+
+        private final List<Long> nanos = new ArrayList<>();
+
+        private long errors;
+
+        private synchronized void add(long latency, boolean success) {
+
+            nanos.add(latency);
+
+            if (!success) {
+                errors++;
+            }
+        }
+
+        private synchronized EndpointSummary summarize(long elapsedNanos) {
+
+            long[] sorted = nanos.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+
+            EndpointSummary summary = new EndpointSummary();
+            summary.count = sorted.length;
+            summary.errors = errors;
+            summary.throughputPerSecond = sorted.length / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+            summary.meanMs = millis((long) Arrays.stream(sorted).average().orElse(0));
+            summary.p50Ms = millis(percentile(sorted, 50));
+            summary.p95Ms = millis(percentile(sorted, 95));
+            summary.p99Ms = millis(percentile(sorted, 99));
+            summary.maxMs = millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+            return summary;
+        }
+
+        /**
+         * Nearest-rank percentile of a sorted sample.
+         */
+        private static long percentile(long[] sorted, double percentile) {
+
+            if (sorted.length == 0) {
+                return 0;
+            }
+
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+    }
+
+    public static class EndpointSummary {
+
+        public long count;
+
+        public long errors;
+
+        public double throughputPerSecond;
+
+        public double meanMs;
+
+        public double p50Ms;
+
+        public double p95Ms;
+
+        public double p99Ms;
+
+        public double maxMs;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import com.example.demo.logging.LogSampler;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class LoggingTest {
+
+    /**
+     * Tests that the root logger writes through the bounded, non-blocking async appender.
+     */
+    @Test
+    public void rootLoggerIsAsync() {
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        AsyncAppender async = (AsyncAppender) context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("ASYNC");
+
+        assertTrue(async.isStarted());
+        assertEquals(8192, async.getQueueSize());
+        assertTrue(async.isNeverBlock());
+        assertFalse(async.isIncludeCallerData());
+    }
+
+    @Test
+    public void samplesOneInEvery() {
+
+        LogSampler sampler = new LogSampler(3);
+
+        int sampled = 0;
+
+        for (int i = 0; i < 9; i++) {
+            if (sampler.sample()) {
+                sampled++;
+            }
+        }
+
+        assertEquals(3, sampled);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroRate() {
+        new LogSampler(0);
+    }
+}
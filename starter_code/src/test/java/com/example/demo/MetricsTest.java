@@ -0,0 +1,54 @@
+package com.example.demo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    /**
+     * Tests that a create, login and authenticated request show up on the unauthenticated scrape endpoint.
+     */
+    @Test
+    public void scrapeEndpoint() throws Exception {
+
+        mvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"METRICSUSER\",\"password\":\"TEST12345\",\"confirmPassword\":\"TEST12345\"}"))
+            .andExpect(status().isOk());
+
+        String authorization = mvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"METRICSUSER\",\"password\":\"TEST12345\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("Authorization"))
+            .andReturn().getResponse().getHeader("Authorization");
+
+        mvc.perform(get("/api/item/1").header("Authorization", authorization)).andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("http_server_requests_seconds_bucket{exception=\"None\",method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/api/item/{id}\"")))
+            .andExpect(content().string(containsString("db_queries_count{method=\"POST\",status=\"200\",uri=\"/api/user/create\",}")))
+            .andExpect(content().string(containsString("bcrypt_seconds_count{operation=\"encode\",}")))
+            .andExpect(content().string(containsString("bcrypt_seconds_count{operation=\"matches\",}")))
+            .andExpect(content().string(containsString("jwt_seconds_count{operation=\"sign\",}")))
+            .andExpect(content().string(containsString("jwt_seconds_count{operation=\"verify\",}")));
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.demo;
 
+import com.example.demo.cache.UserIdentityCache;
 import com.example.demo.controllers.OrderController;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.OrderRepository;
 import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.responses.OrderLineRow;
+import com.example.demo.model.responses.OrderView;
+import com.example.demo.services.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,6 +23,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -33,12 +40,22 @@ public class OrderControllerTest {
 
     private OrderRepository orderRepository = mock(OrderRepository.class);
 
+    private CartRepository cartRepository = mock(CartRepository.class);
+
     @Before
     public void testInit() {
 
+        UserIdentityCache userIdentityCache = new UserIdentityCache(userRepository, 100, 60, new SimpleMeterRegistry());
+
+        OrderService orderService = new OrderService();
+        TestUtils.injectObjects(orderService, "userIdentityCache", userIdentityCache);
+        TestUtils.injectObjects(orderService, "cartRepository", cartRepository);
+        TestUtils.injectObjects(orderService, "orderRepository", orderRepository);
+
         orderController = new OrderController();
-        TestUtils.injectObjects(orderController, "userRepository", userRepository);
         TestUtils.injectObjects(orderController, "orderRepository", orderRepository);
+        TestUtils.injectObjects(orderController, "orderService", orderService);
+        TestUtils.injectObjects(orderController, "userIdentityCache", userIdentityCache);
     }
 
     /**
@@ -82,21 +99,29 @@ public class OrderControllerTest {
 
         //Stub the user and the order for the purposes of this test
         when(userRepository.findByUsername("TESTUSER")).thenReturn(user);
+        when(cartRepository.lockById(2L)).thenReturn(2L);
+        when(cartRepository.findWithLinesById(2L)).thenReturn(Optional.of(cart));
         when(orderRepository.save(userOrderExpected)).thenReturn(userOrderExpected);
 
         //First try creating an order with a bad username which should return a 404
-        ResponseEntity<UserOrder> userOrderResponseNotFound = orderController.submit("ABC");
+        ResponseEntity<OrderView> userOrderResponseNotFound = orderController.submit("ABC", null);
         assertEquals(404, userOrderResponseNotFound.getStatusCodeValue());
 
-        ResponseEntity<UserOrder> userOrderResponse = orderController.submit("TESTUSER");
+        ResponseEntity<OrderView> userOrderResponse = orderController.submit("TESTUSER", null);
 
         assertNotNull(userOrderResponse);
         assertEquals(200, userOrderResponse.getStatusCodeValue());
 
-        UserOrder userOrder = userOrderResponse.getBody();
-        assertEquals(userOrderExpected.getUser(), userOrder.getUser());
+        OrderView userOrder = userOrderResponse.getBody();
         assertEquals(userOrderExpected.getTotal(), userOrder.getTotal());
-        assertEquals(userOrderExpected.getItems(), userOrder.getItems());
+        assertEquals(1, userOrder.getLines().size());
+        assertEquals(item.getId().longValue(), userOrder.getLines().get(0).getItemId());
+        assertEquals(item.getName(), userOrder.getLines().get(0).getName());
+        assertEquals(1, userOrder.getLines().get(0).getQuantity());
+
+        //Submitting empties the cart
+        assertEquals(0, cart.getLines().size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(cart.getTotal()));
     }
 
     @Test
@@ -125,20 +150,26 @@ public class OrderControllerTest {
         user.setCart(cart);
 
         UserOrder userOrder = UserOrder.createFromCart(cart);
+        userOrder.setId(3L);
 
-        List<UserOrder> userOrderList = new ArrayList<>();
-        userOrderList.add(userOrder);
+        //One row per order line, as the history query returns them
+        List<OrderLineRow> rows = new ArrayList<>();
+        rows.add(new OrderLineRow(3L, 199L, "USD", userOrder.getCreatedAt(), 1L, "TEST_ITEM", 1, 199L));
+        rows.add(new OrderLineRow(4L, 0L, "USD", userOrder.getCreatedAt(), null, null, null, null));
 
         when(userRepository.findByUsername("TESTUSER")).thenReturn(user);
-        when(orderRepository.findByUser(user)).thenReturn(userOrderList);
+        when(orderRepository.findLineRowsByUserId(0L)).thenReturn(rows);
 
         //First try getting an order history with a bad username which should return a 404
-        ResponseEntity<List<UserOrder>> userOrderResponseNotFound = orderController.getOrdersForUser("ABC");
+        ResponseEntity<List<OrderView>> userOrderResponseNotFound = orderController.getOrdersForUser("ABC");
         assertEquals(404, userOrderResponseNotFound.getStatusCodeValue());
 
-        ResponseEntity<List<UserOrder>> userOrderResponse = orderController.getOrdersForUser("TESTUSER");
+        ResponseEntity<List<OrderView>> userOrderResponse = orderController.getOrdersForUser("TESTUSER");
         assertEquals(200, userOrderResponse.getStatusCodeValue());
-        List<UserOrder> userOrdersReturned = userOrderResponse.getBody();
-        assertEquals(1, userOrdersReturned.size());
+        List<OrderView> userOrdersReturned = userOrderResponse.getBody();
+        assertEquals(2, userOrdersReturned.size());
+        assertEquals(userOrder.getTotal(), userOrdersReturned.get(0).getTotal());
+        assertEquals(1, userOrdersReturned.get(0).getLines().size());
+        assertEquals(0, userOrdersReturned.get(1).getLines().size());
     }
 }
@@ -0,0 +1,92 @@
+package com.example.demo;
+
+import com.example.demo.controllers.OrderController;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.responses.OrderHistoryPage;
+import com.example.demo.model.responses.OrderSummary;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderHistoryPageTest {
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * Tests walking the order history newest first with summaries and with line items.
+     */
+    @Test
+    public void pageThroughHistory() {
+
+        Item item = itemRepository.findById(1L).get();
+
+        User user = new User();
+        user.setUsername("HISTORYUSER");
+        user.setPassword("thisIsHashed");
+        user.setCart(new Cart());
+        user.getCart().setUser(user);
+        userRepository.save(user);
+
+        UserOrder[] orders = new UserOrder[3];
+
+        for (int i = 0; i < orders.length; i++) {
+
+            user.getCart().addItem(item);
+            orders[i] = orderRepository.save(UserOrder.createFromCart(user.getCart()));
+        }
+
+        ResponseEntity<OrderHistoryPage> firstResponse = orderController.getOrderHistoryPage("HISTORYUSER", null, 2, false);
+        assertEquals(200, firstResponse.getStatusCodeValue());
+
+        OrderHistoryPage first = firstResponse.getBody();
+        assertEquals(2, first.getOrders().size());
+
+        OrderSummary newest = first.getOrders().get(0);
+        assertEquals(orders[2].getId(), newest.getId());
+        assertEquals(3, newest.getItemCount());
+        assertEquals(0, new BigDecimal("8.97").compareTo(newest.getTotal()));
+        assertNotNull(newest.getCreatedAt());
+        assertNull(newest.getLines());
+        assertEquals(orders[1].getId(), first.getNextBeforeId());
+
+        OrderHistoryPage second = orderController.getOrderHistoryPage("HISTORYUSER", first.getNextBeforeId(), 2, true).getBody();
+        assertEquals(1, second.getOrders().size());
+        assertEquals(orders[0].getId(), second.getOrders().get(0).getId());
+        assertEquals(1, second.getOrders().get(0).getLines().size());
+        assertEquals(1, second.getOrders().get(0).getLines().get(0).getQuantity());
+        assertEquals("Round Widget", second.getOrders().get(0).getLines().get(0).getName());
+        assertNull(second.getNextBeforeId());
+
+        assertEquals(404, orderController.getOrderHistoryPage("NOTFOUND", null, 2, false).getStatusCodeValue());
+        assertEquals(400, orderController.getOrderHistoryPage("HISTORYUSER", null, 0, false).getStatusCodeValue());
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.demo;
+
+import com.example.demo.cache.UserIdentityCache;
+import com.example.demo.controllers.OrderController;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.responses.OrderLineRow;
+import com.example.demo.security.JWTTokenService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OrderSubmissionTest {
+
+    private static final String USERNAME = "SUBMISSIONUSER";
+
+    private static boolean userCreated;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JWTTokenService tokenService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
+    private String authorization;
+
+    @Before
+    public void testInit() throws Exception {
+
+        authorization = "Bearer " + tokenService.sign(USERNAME);
+
+        if (!userCreated) {
+
+            mvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + USERNAME + "\",\"password\":\"TEST12345\",\"confirmPassword\":\"TEST12345\"}"))
+                .andExpect(status().isOk());
+
+            userCreated = true;
+        }
+    }
+
+    /**
+     * Tests that submitting stores one line per item with its quantity and price, and empties the cart.
+     */
+    @Test
+    public void submitStoresLinesAndClearsCart() throws Exception {
+
+        addToCart(1, 3);
+        addToCart(2, 1);
+
+        JsonNode order = submit(null).path("body");
+
+        assertEquals(2, order.path("lines").size());
+        assertEquals(3, order.path("lines").get(0).path("quantity").asInt());
+        assertEquals(0, new BigDecimal("10.96").compareTo(order.path("total").decimalValue()));
+
+        List<OrderLineRow> stored = orderRepository.findLineRowsByIdIn(Collections.singleton(order.path("id").asLong()));
+        assertEquals(2, stored.size());
+        assertEquals(4, stored.stream().mapToInt(OrderLineRow::getQuantity).sum());
+
+        Cart cart = cart();
+        assertEquals(0, cart.getLines().size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(cart.getTotal()));
+    }
+
+    /**
+     * Tests that a retry with the same Idempotency-Key returns the first order and does not create another.
+     */
+    @Test
+    public void retryWithSameKeyReplaysOrder() throws Exception {
+
+        addToCart(1, 2);
+
+        JsonNode first = submit("retry-key-1");
+        assertNull(first.get("replayed"));
+
+        addToCart(2, 5);
+
+        JsonNode retry = submit("retry-key-1");
+        assertEquals("true", retry.path("replayed").asText());
+        assertEquals(first.path("body").path("id").asLong(), retry.path("body").path("id").asLong());
+        assertEquals(2, retry.path("body").path("lines").get(0).path("quantity").asInt());
+
+        // The retry did not consume the cart filled in between.
+        assertEquals(5, cart().getItems().size());
+
+        JsonNode next = submit("retry-key-2");
+        assertNull(next.get("replayed"));
+        assertEquals(5, next.path("body").path("lines").get(0).path("quantity").asInt());
+
+        List<OrderLineRow> rows = orderRepository.findLineRowsByUserId(userRepository.findByUsername(USERNAME).getId());
+        assertEquals(1, rows.stream().filter(r -> r.getOrderId() == first.path("body").path("id").asLong()).count());
+    }
+
+    @Test
+    public void rejectsOverlongKey() throws Exception {
+
+        mvc.perform(post("/api/order/submit/" + USERNAME).header("Authorization", authorization)
+            .header(OrderController.IDEMPOTENCY_KEY, new String(new char[101]).replace('\0', 'k')))
+            .andExpect(status().isBadRequest());
+    }
+
+    private void addToCart(long itemId, int quantity) throws Exception {
+
+        mvc.perform(post("/api/cart/addToCart").header("Authorization", authorization)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"" + USERNAME + "\",\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}"))
+            .andExpect(status().isOk());
+    }
+
+    /**
+     * Submits the cart and returns the response body under "body" and the replay header, if sent, under "replayed".
+     */
+    private JsonNode submit(String idempotencyKey) throws Exception {
+
+        MockHttpServletResponse response = mvc.perform(idempotencyKey == null
+                ? post("/api/order/submit/" + USERNAME).header("Authorization", authorization)
+                : post("/api/order/submit/" + USERNAME).header("Authorization", authorization)
+                    .header(OrderController.IDEMPOTENCY_KEY, idempotencyKey))
+            .andExpect(status().isOk())
+            .andReturn().getResponse();
+
+        ObjectNode result = objectMapper.createObjectNode();
+        result.set("body", objectMapper.readTree(response.getContentAsString()));
+
+        if (response.getHeader(OrderController.IDEMPOTENT_REPLAYED) != null) {
+            result.put("replayed", response.getHeader(OrderController.IDEMPOTENT_REPLAYED));
+        }
+
+        return result;
+    }
+
+    private Cart cart() {
+        return cartRepository.findWithLinesById(userIdentityCache.findByUsername(USERNAME).getCartId()).get();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo;
+
+import com.example.demo.maintenance.OrphanCartCleanup;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "cart.orphan-cleanup.batch-size=2")
+public class OrphanCartCleanupTest {
+
+    @Autowired
+    private OrphanCartCleanup orphanCartCleanup;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    /**
+     * Tests that orphan carts, including ones with lines, are removed across several batches while carts that belong
+     * to a user are kept.
+     */
+    @Test
+    public void removesOrphanCartsInBatches() {
+
+        orphanCartCleanup.removeOrphanCarts();
+
+        Item item = itemRepository.findById(1L).get();
+
+        for (int i = 0; i < 5; i++) {
+
+            Cart orphan = new Cart();
+            orphan.addItem(item, 2);
+            cartRepository.save(orphan);
+        }
+
+        User user = new User();
+        user.setUsername("ORPHANCLEANUPUSER");
+        user.setPassword("thisIsHashed");
+        user.setCart(new Cart());
+        user.getCart().setUser(user);
+        user.getCart().addItem(item);
+        userRepository.save(user);
+
+        assertEquals(5, orphanCartCleanup.removeOrphanCarts());
+
+        assertTrue(cartRepository.findOrphanIds(PageRequest.of(0, 10)).isEmpty());
+        assertTrue(cartRepository.findById(user.getCart().getId()).isPresent());
+    }
+}
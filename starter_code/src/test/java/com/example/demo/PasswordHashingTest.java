@@ -0,0 +1,146 @@
+package com.example.demo;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.security.PasswordHashingExecutor;
+import com.example.demo.security.PasswordHashingProperties;
+import com.example.demo.security.PasswordHashingSaturatedException;
+import com.example.demo.security.PooledBCryptPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PasswordHashingTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Tests that a password stored with a lower cost is rehashed with the configured strength on login.
+     */
+    @Test
+    public void rehashOnLogin() throws Exception {
+
+        User user = new User();
+        user.setUsername("REHASHUSER");
+        user.setPassword(new BCryptPasswordEncoder(4).encode("TEST12345"));
+        user.setCart(new Cart());
+        user.getCart().setUser(user);
+        userRepository.save(user);
+
+        mvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"REHASHUSER\",\"password\":\"TEST12345\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("Authorization"));
+
+        String rehashed = userRepository.findByUsername("REHASHUSER").getPassword();
+
+        assertTrue(rehashed, rehashed.startsWith("$2a$10$"));
+        assertTrue(new BCryptPasswordEncoder().matches("TEST12345", rehashed));
+    }
+
+    @Test
+    public void upgradeEncoding() {
+
+        PooledBCryptPasswordEncoder encoder = encoder(pool(1, 1, new SimpleMeterRegistry()));
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("TEST12345")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("TEST12345")));
+        assertFalse(encoder.upgradeEncoding("not a hash"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    /**
+     * Tests that hashing fails fast once every thread is busy and the queue is full.
+     */
+    @Test
+    public void rejectsWhenSaturated() throws Exception {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PasswordHashingExecutor pool = pool(1, 1, meterRegistry);
+        PooledBCryptPasswordEncoder encoder = encoder(pool);
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        try {
+
+            callers.submit(() -> pool.execute(() -> {
+                running.countDown();
+                await(release);
+                return null;
+            }));
+
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            callers.submit(() -> pool.execute(() -> null));
+
+            for (int i = 0; i < 500 && meterRegistry.get("executor.queued").gauge().value() < 1; i++) {
+                Thread.sleep(10);
+            }
+
+            try {
+                encoder.encode("TEST12345");
+                throw new AssertionError("Expected the pool to be saturated");
+            } catch (PasswordHashingSaturatedException expected) {
+                assertEquals("Password hashing capacity exceeded", expected.getMessage());
+            }
+
+        } finally {
+
+            release.countDown();
+            callers.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    private static PasswordHashingExecutor pool(int poolSize, int queueCapacity, SimpleMeterRegistry meterRegistry) {
+
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setPoolSize(poolSize);
+        properties.setQueueCapacity(queueCapacity);
+
+        return new PasswordHashingExecutor(properties, meterRegistry);
+    }
+
+    private static PooledBCryptPasswordEncoder encoder(PasswordHashingExecutor pool) {
+        return new PooledBCryptPasswordEncoder(4, pool, new SimpleMeterRegistry());
+    }
+
+    private static void await(CountDownLatch latch) {
+
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
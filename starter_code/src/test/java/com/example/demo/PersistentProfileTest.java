@@ -0,0 +1,66 @@
+package com.example.demo;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Starts the application twice on the same file database with the persistent profile, as a restart would.
+ */
+public class PersistentProfileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that the migrations create a schema Hibernate validates, with the lookup indexes, and that data written
+     * before a restart is still there after it without the seed data being applied twice.
+     */
+    @Test
+    public void dataSurvivesRestart() throws Exception {
+
+        String url = "jdbc:h2:file:" + folder.getRoot().getAbsolutePath() + "/bootapp";
+
+        try (ConfigurableApplicationContext context = start(url)) {
+
+            User user = new User();
+            user.setUsername("PERSISTENTUSER");
+            user.setPassword("thisIsHashed");
+            user.setCart(new Cart());
+            user.getCart().setUser(user);
+            context.getBean(UserRepository.class).save(user);
+        }
+
+        try (ConfigurableApplicationContext context = start(url)) {
+
+            assertTrue(context.getBean(UserRepository.class).existsByUsername("PERSISTENTUSER"));
+            assertEquals(2, context.getBean(ItemRepository.class).count());
+
+            List<String> indexes = context.getBean(JdbcTemplate.class).queryForList(
+                "select index_name from information_schema.indexes", String.class);
+
+            assertTrue(indexes.contains("IDX_ITEM_NAME"));
+            assertTrue(indexes.contains("IDX_USER_ORDER_USER_ID"));
+            assertTrue(indexes.stream().anyMatch(name -> name.startsWith("UK_USER_USERNAME")));
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String url) {
+
+        return new SpringApplicationBuilder(SareetaApplication.class)
+            .profiles("persistent")
+            .run("--spring.datasource.url=" + url, "--server.port=0");
+    }
+}
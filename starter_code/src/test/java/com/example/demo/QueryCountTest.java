@@ -0,0 +1,177 @@
+package com.example.demo;
+
+import com.example.demo.metrics.QueryCounter;
+import com.example.demo.security.JWTTokenService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards against N+1 regressions by asserting how many SQL statements each endpoint issues once caches are warm.
+ * Every request is sent twice and only the second one is counted.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class QueryCountTest {
+
+    private static final String USERNAME = "QUERYCOUNTUSER";
+
+    private static final String SUBMIT_USERNAME = "QUERYCOUNTSUBMIT";
+
+    private static boolean usersCreated;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JWTTokenService tokenService;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private String authorization;
+
+    @Before
+    public void testInit() throws Exception {
+
+        authorization = "Bearer " + tokenService.sign(USERNAME);
+
+        if (!usersCreated) {
+
+            createUser(USERNAME);
+            createUser(SUBMIT_USERNAME);
+
+            usersCreated = true;
+        }
+    }
+
+    /**
+     * Locking the cart row, reading the cart and writing the cart and its changed line.
+     */
+    @Test
+    public void addToCart() throws Exception {
+        assertStatements(4, post("/api/cart/addToCart").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"" + USERNAME + "\",\"itemId\":1,\"quantity\":2}"));
+    }
+
+    @Test
+    public void removeFromCart() throws Exception {
+        assertStatements(4, post("/api/cart/removeFromCart").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"" + USERNAME + "\",\"itemId\":1,\"quantity\":1}"));
+    }
+
+    /**
+     * All items of a batch are resolved with one query and the changed lines are written as one batch, however many
+     * items there are.
+     */
+    @Test
+    public void modifyCartBatch() throws Exception {
+        assertStatements(5, post("/api/cart/batch").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"" + USERNAME + "\",\"items\":[{\"itemId\":1,\"quantity\":2}," +
+                "{\"itemId\":2,\"quantity\":1},{\"itemId\":1,\"quantity\":-1}]}"));
+    }
+
+    /**
+     * Order lines and the cleared cart lines are written as one batch each, so the count does not grow with the cart.
+     * The cart row is locked by a statement of its own before the cart is read.
+     */
+    @Test
+    public void submitOrder() throws Exception {
+
+        authorization = "Bearer " + tokenService.sign(SUBMIT_USERNAME);
+
+        for (long itemId = 1; itemId <= 2; itemId++) {
+            perform(post("/api/cart/addToCart").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + SUBMIT_USERNAME + "\",\"itemId\":" + itemId + ",\"quantity\":3}"));
+        }
+
+        assertStatementsOnce(6, post("/api/order/submit/" + SUBMIT_USERNAME));
+    }
+
+    /**
+     * A retried submit with the same Idempotency-Key is answered from one query and writes nothing.
+     */
+    @Test
+    public void submitOrderReplay() throws Exception {
+        assertStatements(1, post("/api/order/submit/" + USERNAME).header("Idempotency-Key", "query-count-replay"));
+    }
+
+    @Test
+    public void orderHistory() throws Exception {
+        assertStatements(1, get("/api/order/history/" + USERNAME));
+    }
+
+    @Test
+    public void orderHistoryPage() throws Exception {
+        assertStatements(1, get("/api/order/history/" + USERNAME + "/page"));
+        assertStatements(2, get("/api/order/history/" + USERNAME + "/page?details=true"));
+    }
+
+    @Test
+    public void items() throws Exception {
+        assertStatements(1, get("/api/item"));
+        assertStatements(0, get("/api/item/1"));
+        assertStatements(1, get("/api/item/name/Round Widget"));
+        assertStatements(1, get("/api/item/search?q=widget"));
+    }
+
+    @Test
+    public void user() throws Exception {
+        assertStatements(0, get("/api/user/" + USERNAME));
+    }
+
+    private void createUser(String username) throws Exception {
+
+        mvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"" + username + "\",\"password\":\"TEST12345\",\"confirmPassword\":\"TEST12345\"}"))
+            .andExpect(status().isOk());
+    }
+
+    private void assertStatements(int expected, RequestBuilder request) throws Exception {
+
+        perform(request);
+
+        assertStatementsOnce(expected, request);
+    }
+
+    private void assertStatementsOnce(int expected, RequestBuilder request) throws Exception {
+
+        queryCounter.reset();
+
+        perform(request);
+
+        int actual = queryCounter.count();
+
+        MockHttpServletRequest built = request.buildRequest(new MockServletContext());
+        String endpoint = built.getMethod() + " " + built.getRequestURI() + (built.getQueryString() == null ? "" : "?" + built.getQueryString());
+
+        assertTrue(endpoint + " issued " + actual + " statements, expected at most " + expected, actual <= expected);
+    }
+
+    private void perform(RequestBuilder request) throws Exception {
+        mvc.perform(withAuthorization(request)).andExpect(status().isOk());
+    }
+
+    private RequestBuilder withAuthorization(RequestBuilder request) {
+        return servletContext -> {
+            MockHttpServletRequest mockRequest = request.buildRequest(servletContext);
+            mockRequest.addHeader("Authorization", authorization);
+            return mockRequest;
+        };
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.demo;
+
+import com.example.demo.metrics.QueryCounter;
+import com.example.demo.security.JWTProperties;
+import com.example.demo.security.JWTTokenService;
+import com.example.demo.security.RefreshTokenStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class RefreshTokenTest {
+
+    private static final String PASSWORD = "TEST12345";
+
+    private static int users;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private JWTProperties jwtProperties;
+
+    @Autowired
+    private JWTTokenService tokenService;
+
+    private String username;
+
+    private String refreshToken;
+
+    @Before
+    public void testInit() throws Exception {
+
+        username = "REFRESHUSER" + users++;
+
+        mvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\",\"confirmPassword\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isOk());
+
+        refreshToken = mvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.AUTHORIZATION))
+            .andReturn().getResponse().getHeader(RefreshTokenStore.HEADER);
+    }
+
+    /**
+     * Tests that a refresh hands back a working access token and a new refresh token without querying the database.
+     */
+    @Test
+    public void refresh() throws Exception {
+
+        MockHttpServletResponse refreshed = refresh(refreshToken).andExpect(status().isOk()).andReturn().getResponse();
+        assertEquals(0, queryCounter.count());
+
+        String next = refreshed.getHeader(RefreshTokenStore.HEADER);
+        assertNotEquals(refreshToken, next);
+
+        mvc.perform(get("/api/item/1").header(HttpHeaders.AUTHORIZATION, refreshed.getHeader(HttpHeaders.AUTHORIZATION)))
+            .andExpect(status().isOk());
+
+        refresh(next).andExpect(status().isOk());
+
+        refresh("not a token").andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Tests that reusing a spent refresh token revokes the refresh token that replaced it.
+     */
+    @Test
+    public void reuseRevokesFamily() throws Exception {
+
+        String next = refresh(refreshToken).andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(RefreshTokenStore.HEADER);
+
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+        refresh(next).andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Tests that a revoked refresh token can no longer be refreshed.
+     */
+    @Test
+    public void revoke() throws Exception {
+
+        mvc.perform(post("/api/token/revoke").header(RefreshTokenStore.HEADER, refreshToken))
+            .andExpect(status().isNoContent());
+
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+
+        mvc.perform(post("/api/token/revoke").header(RefreshTokenStore.HEADER, "not a token"))
+            .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Tests that an expired or tampered access token is answered with a 401, the signal to refresh, not a server error.
+     */
+    @Test
+    public void rejectedAccessToken() throws Exception {
+
+        JWTProperties expiring = new JWTProperties();
+        expiring.setKeyId(jwtProperties.getKeyId());
+        expiring.setSecret(jwtProperties.getSecret());
+        expiring.setExpirationMs(-60_000);
+        String expired = new JWTTokenService(expiring).sign(username);
+
+        mvc.perform(get("/api/item/1").header(HttpHeaders.AUTHORIZATION, "Bearer " + expired))
+            .andExpect(status().isUnauthorized());
+
+        String token = tokenService.sign(username);
+        // Change the first signature character; the last one carries padding bits that may not affect the bytes
+        int signature = token.lastIndexOf('.') + 1;
+        char replacement = token.charAt(signature) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signature) + replacement + token.substring(signature + 1);
+
+        mvc.perform(get("/api/item/1").header(HttpHeaders.AUTHORIZATION, "Bearer " + tampered))
+            .andExpect(status().isUnauthorized());
+
+        mvc.perform(get("/api/item/1").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().isOk());
+    }
+
+    private ResultActions refresh(String token) throws Exception {
+
+        return mvc.perform(post("/api/token/refresh").header(RefreshTokenStore.HEADER, token));
+    }
+}
@@ -1,10 +1,11 @@
 package com.example.demo;
 
+import com.example.demo.cache.UserIdentityCache;
 import com.example.demo.controllers.UserController;
 import com.example.demo.model.persistence.User;
-import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.UserRepository;
 import com.example.demo.model.requests.CreateUserRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -16,7 +17,11 @@ import org.springframework.test.context.junit4.SpringRunner;
 import java.util.Optional;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
@@ -27,8 +32,6 @@ public class UserControllerTests {
 
     private UserRepository userRepository = mock(UserRepository.class);
 
-    private CartRepository cartRepository = mock(CartRepository.class);
-
     private BCryptPasswordEncoder bCryptPasswordEncoder = mock(BCryptPasswordEncoder.class);
 
     @Before
@@ -36,8 +39,8 @@ public class UserControllerTests {
 
         userController = new UserController();
         TestUtils.injectObjects(userController, "userRepository", userRepository);
-        TestUtils.injectObjects(userController, "cartRepository", cartRepository);
         TestUtils.injectObjects(userController, "bCryptPasswordEncoder", bCryptPasswordEncoder);
+        TestUtils.injectObjects(userController, "userIdentityCache", new UserIdentityCache(userRepository, 100, 60, new SimpleMeterRegistry()));
     }
 
     /**
@@ -63,6 +66,10 @@ public class UserControllerTests {
         assertEquals(0, user.getId());
         assertEquals("TEST", user.getUsername());
         assertEquals("thisIsHashed", user.getPassword());
+        assertNotNull(user.getCart());
+        assertSame(user, user.getCart().getUser());
+
+        verify(userRepository).save(user);
     }
 
     /**
@@ -80,6 +87,48 @@ public class UserControllerTests {
 
         assertNotNull(response);
         assertEquals(400, response.getStatusCodeValue());
+
+        verify(userRepository, never()).save(any());
+        verifyZeroInteractions(bCryptPasswordEncoder);
+    }
+
+    /**
+     * Tests that a confirmation that does not match is rejected before anything is hashed or saved.
+     */
+    @Test
+    public void createUserPasswordMismatch() {
+
+        CreateUserRequest createUserRequest = new CreateUserRequest();
+        createUserRequest.setUsername("TEST");
+        createUserRequest.setPassword("TEST1234");
+        createUserRequest.setConfirmPassword("TEST4321");
+
+        final ResponseEntity<User> response = userController.createUser(createUserRequest);
+
+        assertEquals(400, response.getStatusCodeValue());
+
+        verifyZeroInteractions(userRepository, bCryptPasswordEncoder);
+    }
+
+    /**
+     * Tests that a taken username is rejected with 409 before the password is hashed.
+     */
+    @Test
+    public void createUserDuplicateUsername() {
+
+        when(userRepository.existsByUsername("TEST")).thenReturn(true);
+
+        CreateUserRequest createUserRequest = new CreateUserRequest();
+        createUserRequest.setUsername("TEST");
+        createUserRequest.setPassword("TEST1234");
+        createUserRequest.setConfirmPassword("TEST1234");
+
+        final ResponseEntity<User> response = userController.createUser(createUserRequest);
+
+        assertEquals(409, response.getStatusCodeValue());
+
+        verify(userRepository, never()).save(any());
+        verifyZeroInteractions(bCryptPasswordEncoder);
     }
 
     /**
@@ -0,0 +1,101 @@
+package com.example.demo;
+
+import com.example.demo.cache.UserIdentity;
+import com.example.demo.cache.UserIdentityCache;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserChangedEvent;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UserIdentityCacheTest {
+
+    private UserRepository userRepository = mock(UserRepository.class);
+
+    private UserIdentityCache userIdentityCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private User user;
+
+    @Before
+    public void testInit() {
+
+        meterRegistry = new SimpleMeterRegistry();
+        userIdentityCache = new UserIdentityCache(userRepository, 100, 60, meterRegistry);
+
+        Cart cart = new Cart();
+        cart.setId(2L);
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("TEST");
+        user.setPassword("thisIsHashed");
+        user.setCart(cart);
+
+        when(userRepository.findByUsername("TEST")).thenReturn(user);
+    }
+
+    /**
+     * Tests that repeated lookups of the same username only query the repository once, and that the hit is published.
+     */
+    @Test
+    public void findByUsernameIsCached() {
+
+        UserIdentity first = userIdentityCache.findByUsername("TEST");
+        UserIdentity second = userIdentityCache.findByUsername("TEST");
+
+        assertEquals(1L, second.getId());
+        assertEquals("thisIsHashed", second.getPasswordHash());
+        assertEquals(Long.valueOf(2L), second.getCartId());
+        assertEquals(first, second);
+        verify(userRepository, times(1)).findByUsername("TEST");
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "user.identity").tag("result", "hit")
+            .functionCounter().count(), 0);
+    }
+
+    /**
+     * Tests that unknown usernames are not remembered, so a user created later is found.
+     */
+    @Test
+    public void unknownUsernameIsNotCached() {
+
+        assertNull(userIdentityCache.findByUsername("NEWUSER"));
+
+        User newUser = new User();
+        newUser.setId(3L);
+        newUser.setUsername("NEWUSER");
+        when(userRepository.findByUsername("NEWUSER")).thenReturn(newUser);
+
+        assertEquals(3L, userIdentityCache.findByUsername("NEWUSER").getId());
+    }
+
+    /**
+     * Tests that a changed user, for example a new password hash, is reloaded on the next lookup.
+     */
+    @Test
+    public void userChangeEvictsEntry() {
+
+        userIdentityCache.findByUsername("TEST");
+
+        user.setPassword("newHash");
+        userIdentityCache.onUserChanged(new UserChangedEvent("TEST"));
+
+        assertEquals("newHash", userIdentityCache.findByUsername("TEST").getPasswordHash());
+        verify(userRepository, times(2)).findByUsername("TEST");
+    }
+}
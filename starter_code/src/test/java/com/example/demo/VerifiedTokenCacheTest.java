@@ -0,0 +1,88 @@
+package com.example.demo;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.example.demo.security.JWTProperties;
+import com.example.demo.security.JWTTokenService;
+import com.example.demo.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class VerifiedTokenCacheTest {
+
+    private JWTTokenService tokenService;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void testInit() {
+
+        JWTProperties properties = new JWTProperties();
+        properties.setKeyId("k1");
+        properties.setSecret("TESTSECRET1");
+        properties.setCacheMaxSize(10);
+
+        tokenService = spy(new JWTTokenService(properties));
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCache = new VerifiedTokenCache(tokenService, properties, meterRegistry);
+    }
+
+    /**
+     * Tests that a token is only verified cryptographically the first time it is seen, and that the hit is published.
+     */
+    @Test
+    public void verifyTwice() {
+
+        String token = tokenService.sign("TESTUSER");
+
+        assertEquals("TESTUSER", verifiedTokenCache.verify(token));
+        assertEquals("TESTUSER", verifiedTokenCache.verify(token));
+
+        verify(tokenService, times(1)).verify(token);
+        assertEquals(1, verifiedTokenCache.stats().hitCount());
+        assertEquals(1, verifiedTokenCache.stats().missCount());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "token.verified").tag("result", "hit")
+            .functionCounter().count(), 0);
+    }
+
+    /**
+     * Tests that a tampered token is rejected and not remembered.
+     */
+    @Test
+    public void verifyTamperedToken() {
+
+        String token = tokenService.sign("TESTUSER");
+        // Change the first signature character; the last one carries padding bits that may not affect the bytes
+        int signature = token.lastIndexOf('.') + 1;
+        char replacement = token.charAt(signature) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signature) + replacement + token.substring(signature + 1);
+
+        for (int i = 0; i < 2; i++) {
+
+            try {
+
+                verifiedTokenCache.verify(tampered);
+
+            } catch (JWTVerificationException expected) {
+                continue;
+            }
+
+            throw new AssertionError("Tampered token was accepted");
+        }
+
+        assertEquals(0, verifiedTokenCache.size());
+        assertEquals(2, verifiedTokenCache.stats().missCount());
+    }
+}